@@ -0,0 +1,150 @@
+package org.leocoder.devnote.hub.benchmark;
+
+import org.leocoder.devnote.hub.utils.EncodingDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 编码检测基准测试
+ * <p>
+ * 对约4MB的ASCII、UTF-8中文和GBK中文内容分别测量整篇扫描的吞吐，结果按每秒检测次数给出。
+ * legacySample复刻改造前只取开头4KB采样的检测逻辑作为基线，用于对比整篇扫描多付出的代价。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingDetectorBenchmark {
+
+    private static final int TARGET_BYTES = 4 * 1024 * 1024;
+
+    @Param({"ascii", "utf8", "gbk"})
+    private String content;
+
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        String line;
+        Charset charset;
+        switch (content) {
+            case "ascii":
+                line = "Plain English markdown line with `code` and [links](https://example.com).\n";
+                charset = StandardCharsets.US_ASCII;
+                break;
+            case "utf8":
+                line = "这是一行中文Markdown内容，包含 `代码` 和 [链接](https://example.com)。\n";
+                charset = StandardCharsets.UTF_8;
+                break;
+            default:
+                line = "这是一行中文Markdown内容，包含 `代码` 和 [链接](https://example.com)。\n";
+                charset = Charset.forName("GBK");
+                break;
+        }
+        byte[] lineBytes = line.getBytes(charset);
+        data = new byte[TARGET_BYTES / lineBytes.length * lineBytes.length];
+        for (int i = 0; i < data.length; i += lineBytes.length) {
+            System.arraycopy(lineBytes, 0, data, i, lineBytes.length);
+        }
+    }
+
+    @Benchmark
+    public Charset detectArray() {
+        return EncodingDetector.detectEncoding(data, 0, data.length);
+    }
+
+    @Benchmark
+    public Charset detectStream() throws IOException {
+        return EncodingDetector.detectEncoding(new ByteArrayInputStream(data));
+    }
+
+    @Benchmark
+    public Charset legacySample() throws IOException {
+        return legacyDetect(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * 改造前的检测逻辑：mark/reset读取开头4KB，逐字节统计GBK双字节和非法UTF-8序列，去掉了日志输出
+     */
+    private static Charset legacyDetect(InputStream inputStream) throws IOException {
+        if (!inputStream.markSupported()) {
+            inputStream = new BufferedInputStream(inputStream);
+        }
+        inputStream.mark(4);
+        byte[] bom = new byte[4];
+        int read = inputStream.read(bom);
+        inputStream.reset();
+        if (read >= 3 && bom[0] == (byte) 0xEF && bom[1] == (byte) 0xBB && bom[2] == (byte) 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+
+        inputStream.mark(4096);
+        byte[] buffer = new byte[4096];
+        read = inputStream.read(buffer);
+        inputStream.reset();
+        if (read <= 0) {
+            return StandardCharsets.UTF_8;
+        }
+
+        int gbkCount = 0;
+        int invalidUtf8Count = 0;
+        for (int i = 0; i < read; i++) {
+            int value = buffer[i] & 0xFF;
+            if (value >= 128 && i + 1 < read) {
+                int nextValue = buffer[i + 1] & 0xFF;
+                if ((value >= 0x81 && value <= 0xFE)
+                        && ((nextValue >= 0x40 && nextValue <= 0x7E) || (nextValue >= 0x80 && nextValue <= 0xFE))) {
+                    gbkCount++;
+                    i++;
+                }
+            }
+            if (value >= 0x80) {
+                if (value >= 0xC0 && value <= 0xDF) {
+                    if (i + 1 >= read || (buffer[i + 1] & 0xC0) != 0x80) {
+                        invalidUtf8Count++;
+                    }
+                } else if (value >= 0xE0 && value <= 0xEF) {
+                    if (i + 2 >= read || (buffer[i + 1] & 0xC0) != 0x80 || (buffer[i + 2] & 0xC0) != 0x80) {
+                        invalidUtf8Count++;
+                    }
+                } else if (value >= 0xF0 && value <= 0xF7) {
+                    if (i + 3 >= read || (buffer[i + 1] & 0xC0) != 0x80
+                            || (buffer[i + 2] & 0xC0) != 0x80 || (buffer[i + 3] & 0xC0) != 0x80) {
+                        invalidUtf8Count++;
+                    }
+                } else if ((value & 0xC0) == 0x80) {
+                    invalidUtf8Count++;
+                }
+            }
+        }
+
+        if (invalidUtf8Count > 0 && gbkCount > 0) {
+            return Charset.forName("GBK");
+        } else if (invalidUtf8Count > 0) {
+            return Charset.forName("GB18030");
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,81 @@
+package org.leocoder.devnote.hub.benchmark;
+
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 上传扩展名白名单校验基准测试
+ * <p>
+ * 对比预计算白名单的isAllowedExtension与改造前每次校验都拆分配置字符串、拼接三个列表再contains的做法，
+ * 分别测量命中图片、命中视频（位于列表末尾）和不在白名单中的扩展名。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtensionAllowListBenchmark {
+
+    private static final String IMAGE_EXTENSIONS = "jpg,jpeg,png,gif,bmp,webp,svg";
+    private static final String DOCUMENT_EXTENSIONS = "md,txt,pdf,doc,docx,xls,xlsx,ppt,pptx";
+    private static final String VIDEO_EXTENSIONS = "mp4,avi,mov,wmv,flv,mkv";
+
+    @Param({"PNG", "mkv", "exe"})
+    private String extension;
+
+    private MinioConfig minioConfig;
+
+    @Setup
+    public void setUp() {
+        minioConfig = new MinioConfig();
+        minioConfig.setAllowedImageExtensions(IMAGE_EXTENSIONS);
+        minioConfig.setAllowedDocumentExtensions(DOCUMENT_EXTENSIONS);
+        minioConfig.setAllowedVideoExtensions(VIDEO_EXTENSIONS);
+    }
+
+    @Benchmark
+    public boolean precomputed() {
+        return minioConfig.isAllowedExtension(extension);
+    }
+
+    @Benchmark
+    public boolean legacySplit() {
+        return legacyAllAllowedExtensions().contains(extension.toLowerCase());
+    }
+
+    /**
+     * 改造前的getAllAllowedExtensions：每次调用都重新拆分三个配置字符串并拼接成新列表
+     */
+    private static List<String> legacyAllAllowedExtensions() {
+        return Stream.concat(
+                Stream.concat(split(IMAGE_EXTENSIONS).stream(), split(DOCUMENT_EXTENSIONS).stream()),
+                split(VIDEO_EXTENSIONS).stream()
+        ).collect(Collectors.toList());
+    }
+
+    private static List<String> split(String extensions) {
+        return Arrays.stream(extensions.split(","))
+                .map(String::trim)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,110 @@
+package org.leocoder.devnote.hub.benchmark;
+
+import org.leocoder.devnote.hub.enums.FileTypeEnum;
+import org.leocoder.devnote.hub.utils.FileTypeSniffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 文件头类型识别基准测试
+ * <p>
+ * 对1MB的PNG、MP4、DOCX和无法识别的内容，测量上传路径上包装缓冲流并按文件头识别类型的耗时，
+ * 与改造前只按扩展名查MIME类型的做法对比，识别只读取开头4KB，耗时不随文件大小增长。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileTypeSnifferBenchmark {
+
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    @Param({"png", "mp4", "docx", "unknown"})
+    private String type;
+
+    private byte[] data;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] head;
+        switch (type) {
+            case "png":
+                head = new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+                break;
+            case "mp4":
+                head = new byte[]{0, 0, 0, 0x20, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'};
+                break;
+            case "docx":
+                head = docx();
+                break;
+            default:
+                head = "plain text without any magic bytes\n".getBytes(StandardCharsets.US_ASCII);
+                break;
+        }
+        data = Arrays.copyOf(head, Math.max(FILE_SIZE, head.length));
+    }
+
+    @Benchmark
+    public FileTypeEnum sniff() throws IOException {
+        try (InputStream in = new BufferedInputStream(new ByteArrayInputStream(data))) {
+            return FileTypeSniffer.sniff(in);
+        }
+    }
+
+    @Benchmark
+    public String extensionOnly() {
+        return FileTypeEnum.getMimeTypeByExtension(type);
+    }
+
+    /**
+     * 按Office的写法先写[Content_Types].xml再写word/document.xml，条目不压缩，本地文件头中记录大小
+     */
+    private static byte[] docx() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            putStored(zip, "[Content_Types].xml", "<?xml version=\"1.0\"?><Types/>");
+            putStored(zip, "word/document.xml", "<?xml version=\"1.0\"?><w:document/>");
+        }
+        return out.toByteArray();
+    }
+
+    private static void putStored(ZipOutputStream zip, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCompressedSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,126 @@
+package org.leocoder.devnote.hub.benchmark;
+
+import org.leocoder.devnote.hub.utils.MarkdownImageParser;
+import org.leocoder.devnote.hub.utils.MarkdownImageParser.ImageRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Markdown图片引用重写基准测试
+ * <p>
+ * 对比单遍解析重写与原先依次执行Base64、外部URL、特殊格式三遍正则替换的耗时。
+ * 文档由中文段落、外部图片、截图和小尺寸Base64图片混合组成，sizeMb控制文档大小，imageEvery控制图片引用的密度；
+ * 替换结果固定，只测量扫描和拼接本身。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MarkdownImageParserBenchmark {
+
+    private static final String REPLACEMENT_URL = "https://minio.example.com/devnote/content/images/x.png";
+
+    // 原实现的三个正则
+    private static final Pattern BASE64_IMAGE_PATTERN =
+            Pattern.compile("!\\[(.*?)\\]\\(data:image/(.*?);base64,(.*?)\\)");
+    private static final Pattern URL_IMAGE_PATTERN =
+            Pattern.compile("!\\[(.*?)\\]\\((https?://.*?\\.(png|jpg|jpeg|gif|webp|bmp))\\)");
+    private static final Pattern SPECIAL_IMAGE_PATTERN =
+            Pattern.compile("!\\[(Image-\\d+)\\]\\((https?://.*?\\.(png|jpg|jpeg|gif|webp|bmp))\\)");
+
+    /**
+     * 文档大小（MB）
+     */
+    @Param({"5", "20"})
+    private int sizeMb;
+
+    /**
+     * 每隔多少行出现一个图片引用
+     */
+    @Param({"5", "50"})
+    private int imageEvery;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        byte[] pixel = new byte[256];
+        random.nextBytes(pixel);
+        String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(pixel);
+
+        int target = sizeMb * 1024 * 1024;
+        StringBuilder builder = new StringBuilder(target + 1024);
+        for (int i = 0; builder.length() < target; i++) {
+            if (i % imageEvery == 0) {
+                switch (i / imageEvery % 3) {
+                    case 0:
+                        builder.append("![架构图 v").append(i).append("](https://cdn.example.com/img/").append(i).append(".png)");
+                        break;
+                    case 1:
+                        builder.append("![Image-2024020209").append(i).append("](https://cdn.example.com/s/").append(i).append(".jpg)");
+                        break;
+                    default:
+                        builder.append("![inline](").append(dataUri).append(')');
+                        break;
+                }
+            } else {
+                builder.append("这是第").append(i).append("行普通文本，包含 [链接](https://example.com/page) 和 `代码` 片段。");
+            }
+            builder.append('\n');
+        }
+        content = builder.toString();
+    }
+
+    @Benchmark
+    public List<ImageRef> parse() {
+        return MarkdownImageParser.parse(content);
+    }
+
+    @Benchmark
+    public String singlePassRewrite() {
+        List<ImageRef> refs = MarkdownImageParser.parse(content);
+        return MarkdownImageParser.rewrite(content, refs, ref -> "![" + ref.getAltText() + "](" + REPLACEMENT_URL + ")");
+    }
+
+    @Benchmark
+    public String threePassRegexRewrite() {
+        String result = replaceAll(BASE64_IMAGE_PATTERN, content);
+        result = replaceAll(URL_IMAGE_PATTERN, result);
+        return replaceAll(SPECIAL_IMAGE_PATTERN, result);
+    }
+
+    /**
+     * 与原实现相同的appendReplacement替换方式
+     */
+    private static String replaceAll(Pattern pattern, String input) {
+        Matcher matcher = pattern.matcher(input);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, "![" + matcher.group(1) + "](" + REPLACEMENT_URL + ")");
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+}
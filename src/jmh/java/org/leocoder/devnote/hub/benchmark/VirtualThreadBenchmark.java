@@ -0,0 +1,109 @@
+package org.leocoder.devnote.hub.benchmark;
+
+import org.leocoder.devnote.hub.utils.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 虚拟线程与平台线程池处理阻塞请求的基准测试
+ * <p>
+ * 模拟一批同时到达的请求，每个请求阻塞等待一次MinIO/HTTP调用，测量整批处理完成的耗时：
+ * platform为Tomcat默认的200个平台线程，virtual为每个请求一个虚拟线程并按max-concurrent-requests的信号量限流，
+ * 与VirtualThreadConfig中的配置一致。virtual需要Java 21运行时（-Pjdk21），Java 17下该组参数会直接失败。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    // Tomcat默认的最大工作线程数
+    private static final int PLATFORM_THREADS = 200;
+
+    // 与application.yml中virtual-threads.max-concurrent-requests一致
+    private static final int MAX_CONCURRENT_REQUESTS = 2000;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"2000"})
+    private int requests;
+
+    @Param({"10"})
+    private long blockingMillis;
+
+    private ExecutorService executor;
+    private Semaphore permits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("virtual".equals(mode)) {
+            if (!VirtualThreads.isSupported()) {
+                throw new UnsupportedOperationException("虚拟线程需要Java 21运行时: " + Runtime.version());
+            }
+            executor = VirtualThreads.newVirtualThreadPerTaskExecutor("bench-vt-");
+            permits = new Semaphore(MAX_CONCURRENT_REQUESTS, true);
+        } else {
+            executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void handleBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    handleRequest();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void handleRequest() {
+        if (permits != null) {
+            permits.acquireUninterruptibly();
+        }
+        try {
+            // 阻塞等待下游调用返回
+            Thread.sleep(blockingMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+}
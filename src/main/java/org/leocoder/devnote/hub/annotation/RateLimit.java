@@ -0,0 +1,26 @@
+package org.leocoder.devnote.hub.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 接口限流注解
+ * <p>
+ * 标注在Controller方法上，按指定的限流规则（rate-limit.rules中的名称）进行准入控制。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * 限流规则名称
+     */
+    String value();
+}
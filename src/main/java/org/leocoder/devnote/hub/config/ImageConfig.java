@@ -0,0 +1,135 @@
+package org.leocoder.devnote.hub.config;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 图片处理配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "business.image")
+public class ImageConfig {
+
+    /**
+     * 图片最大宽度（像素），超出时等比缩放
+     */
+    @ApiModelProperty("图片最大宽度（像素）")
+    private int maxWidth = 1920;
+
+    /**
+     * 图片最大高度（像素），超出时等比缩放
+     */
+    @ApiModelProperty("图片最大高度（像素）")
+    private int maxHeight = 1080;
+
+    /**
+     * 重新编码的压缩质量（1-100）
+     */
+    @ApiModelProperty("重新编码的压缩质量（1-100）")
+    private int compressQuality = 85;
+
+    /**
+     * 是否在上传时处理图片
+     */
+    @ApiModelProperty("是否在上传时处理图片")
+    private boolean processEnabled = true;
+
+    /**
+     * 缩略图尺寸（最长边像素）
+     */
+    @ApiModelProperty("缩略图尺寸（最长边像素）")
+    private List<Integer> thumbnailSizes = new ArrayList<>(Arrays.asList(160, 480));
+
+    /**
+     * 单张图片允许的最大像素数
+     */
+    @ApiModelProperty("单张图片允许的最大像素数")
+    private long maxPixels = 120_000_000L;
+
+    /**
+     * 图片处理线程数
+     */
+    @ApiModelProperty("图片处理线程数")
+    private int processConcurrency = 2;
+
+    /**
+     * 图片处理排队上限
+     */
+    @ApiModelProperty("图片处理排队上限")
+    private int processQueueCapacity = 50;
+
+    /**
+     * 同时处理的图片解码内存预算（字节）
+     */
+    @ApiModelProperty("同时处理的图片解码内存预算（字节）")
+    private long memoryBudget = 256L * 1024 * 1024;
+
+    /**
+     * 等待内存预算的最长时间（毫秒）
+     */
+    @ApiModelProperty("等待内存预算的最长时间（毫秒）")
+    private long admissionTimeout = 30000;
+
+    /**
+     * 单张图片处理的最长时间（毫秒），超时后取消处理并按原图上传
+     */
+    @ApiModelProperty("单张图片处理的最长时间（毫秒）")
+    private long processTimeout = 30000;
+
+    /**
+     * 预览允许的宽高档位（像素），请求的宽高向上取到最近的档位，超出最大档位时按最大档位
+     */
+    @ApiModelProperty("预览允许的宽高档位（像素）")
+    private List<Integer> previewSizes = new ArrayList<>(Arrays.asList(160, 320, 480, 640, 960, 1280, 1920));
+
+    /**
+     * 预览允许的压缩质量档位（1-100），请求的质量向上取到最近的档位
+     */
+    @ApiModelProperty("预览允许的压缩质量档位（1-100）")
+    private List<Integer> previewQualities = new ArrayList<>(Arrays.asList(60, 75, 85));
+
+    /**
+     * 预览图本地缓存容量（字节）
+     */
+    @ApiModelProperty("预览图本地缓存容量（字节）")
+    private long previewCacheSize = 64L * 1024 * 1024;
+
+    /**
+     * 预览图在对象存储中的目录
+     */
+    @ApiModelProperty("预览图在对象存储中的目录")
+    private String previewPrefix = "derivatives";
+
+    /**
+     * 预览图的浏览器缓存时间（秒）
+     */
+    @ApiModelProperty("预览图的浏览器缓存时间（秒）")
+    private long previewMaxAge = 7 * 24 * 3600;
+
+    /**
+     * 创建图片处理线程池
+     * 解码和缩放是CPU密集型操作，线程数保持较小，有界队列排满后拒绝
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageProcessExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(processConcurrency);
+        executor.setMaxPoolSize(processConcurrency);
+        executor.setQueueCapacity(processQueueCapacity);
+        executor.setThreadNamePrefix("image-process-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
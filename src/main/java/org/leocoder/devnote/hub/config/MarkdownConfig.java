@@ -0,0 +1,153 @@
+package org.leocoder.devnote.hub.config;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import org.leocoder.devnote.hub.utils.VirtualThreads;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-16
+ * @description : Markdown处理配置类
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "markdown")
+public class MarkdownConfig {
+
+    /**
+     * 单节点图片并发处理上限
+     */
+    @ApiModelProperty("单节点图片并发处理上限")
+    private int imageConcurrency = 16;
+
+    /**
+     * 同一图片域名的并发下载上限
+     */
+    @ApiModelProperty("同一图片域名的并发下载上限")
+    private int imageHostConcurrency = 4;
+
+    /**
+     * 是否以流式方式处理并上传Markdown文件
+     */
+    @ApiModelProperty("是否以流式方式处理并上传Markdown文件")
+    private boolean streamingUpload = true;
+
+    /**
+     * 流式处理时提前解析并开始下载图片的窗口数
+     */
+    @ApiModelProperty("流式处理时提前解析并开始下载图片的窗口数")
+    private int streamingLookaheadWindows = 2;
+
+    /**
+     * 图片下载的连接超时（毫秒）
+     */
+    @ApiModelProperty("图片下载的连接超时（毫秒）")
+    private long imageConnectTimeout = 3000;
+
+    /**
+     * 图片下载等待响应的超时（毫秒）
+     */
+    @ApiModelProperty("图片下载等待响应的超时（毫秒）")
+    private long imageReadTimeout = 10000;
+
+    /**
+     * 单张图片下载的总耗时上限（毫秒），包括读取响应体
+     */
+    @ApiModelProperty("单张图片下载的总耗时上限（毫秒）")
+    private long imageTotalTimeout = 30000;
+
+    /**
+     * 单张外部图片的最大大小（字节）
+     */
+    @ApiModelProperty("单张外部图片的最大大小（字节）")
+    private long imageMaxSize = 20L * 1024 * 1024;
+
+    /**
+     * 外部图片来源缓存的保留时间（秒），超时后重新下载
+     */
+    @ApiModelProperty("外部图片来源缓存的保留时间（秒）")
+    private long imageCacheTtl = 7 * 24 * 3600;
+
+    /**
+     * 外部图片来源缓存的新鲜期（秒），新鲜期内直接复用，超过后发起条件请求确认是否修改
+     */
+    @ApiModelProperty("外部图片来源缓存的新鲜期（秒）")
+    private long imageCacheFreshTtl = 24 * 3600;
+
+    /**
+     * 外部图片来源本地缓存的最大条目数
+     */
+    @ApiModelProperty("外部图片来源本地缓存的最大条目数")
+    private long imageCacheLocalSize = 10000;
+
+    /**
+     * 异步处理任务的并发数
+     */
+    @ApiModelProperty("异步处理任务的并发数")
+    private int jobConcurrency = 4;
+
+    /**
+     * 异步处理任务的排队上限，超出时拒绝提交
+     */
+    @ApiModelProperty("异步处理任务的排队上限")
+    private int jobQueueCapacity = 100;
+
+    /**
+     * 异步处理任务状态的保留时间（分钟）
+     */
+    @ApiModelProperty("异步处理任务状态的保留时间（分钟）")
+    private long jobExpireMinutes = 60;
+
+    /**
+     * 创建Markdown异步处理任务线程池
+     * 有界队列，排满后拒绝新任务而不是无限堆积
+     */
+    @Bean
+    public ThreadPoolTaskExecutor markdownJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobConcurrency);
+        executor.setMaxPoolSize(jobConcurrency);
+        executor.setQueueCapacity(jobQueueCapacity);
+        executor.setThreadNamePrefix("md-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * 创建Markdown图片处理执行器
+     * 线程数与全局并发上限一致；任务在并发限制器中按域名排队，取得许可后才提交，队列长度不会超过全局并发上限。
+     * 启用虚拟线程时每个图片任务使用一个虚拟线程
+     */
+    @Bean
+    public Executor markdownImageExecutor(VirtualThreadConfig virtualThreadConfig) {
+        if (virtualThreadConfig.isActive()) {
+            return VirtualThreads.newVirtualThreadPerTaskExecutor("md-image-vt-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageConcurrency);
+        executor.setMaxPoolSize(imageConcurrency);
+        executor.setThreadNamePrefix("md-image-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * 创建图片下载超时调度器，到达总耗时上限时关闭仍在读取的响应体
+     */
+    @Bean
+    public ThreadPoolTaskScheduler imageFetchTimeoutScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setThreadNamePrefix("md-image-timeout-");
+        return scheduler;
+    }
+}
@@ -0,0 +1,79 @@
+package org.leocoder.devnote.hub.config;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.leocoder.devnote.hub.service.impl.ImagePreviewService;
+import org.leocoder.devnote.hub.service.impl.ImageProcessService;
+import org.leocoder.devnote.hub.service.impl.MarkdownService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 监控指标配置类
+ * <p>
+ * 线程池（ThreadPoolTaskExecutor）和Tomcat的指标由Spring Boot自动注册，
+ * 这里补充图片处理并发许可、解码内存预算和Druid连接池的状态。
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 图片处理相关的许可和预算
+     */
+    @Bean
+    public MeterBinder imagePipelineMetrics(MarkdownService markdownService,
+                                            ImageProcessService imageProcessService,
+                                            ImagePreviewService imagePreviewService) {
+        return registry -> {
+            Gauge.builder("devnote.markdown.image.permits.available", markdownService,
+                            MarkdownService::getAvailableImagePermits)
+                    .description("Markdown图片处理的可用全局并发许可")
+                    .register(registry);
+            Gauge.builder("devnote.image.memory.available", imageProcessService,
+                            ImageProcessService::getAvailableMemory)
+                    .description("图片解码的可用内存预算")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("devnote.image.preview.rendering", imagePreviewService,
+                            ImagePreviewService::getRenderingCount)
+                    .description("正在生成的预览图数量")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Druid连接池状态
+     */
+    @Bean
+    public MeterBinder druidPoolMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(DruidDataSource.class::isInstance)
+                .map(DruidDataSource.class::cast)
+                .forEach(dataSource -> {
+                    String name = dataSource.getName();
+                    Gauge.builder("druid.pool.active", dataSource, DruidDataSource::getActiveCount)
+                            .description("正在使用的连接数")
+                            .tag("pool", name)
+                            .register(registry);
+                    Gauge.builder("druid.pool.idle", dataSource, DruidDataSource::getPoolingCount)
+                            .description("空闲连接数")
+                            .tag("pool", name)
+                            .register(registry);
+                    Gauge.builder("druid.pool.max", dataSource, DruidDataSource::getMaxActive)
+                            .description("最大连接数")
+                            .tag("pool", name)
+                            .register(registry);
+                    Gauge.builder("druid.pool.waiting", dataSource, DruidDataSource::getWaitThreadCount)
+                            .description("等待获取连接的线程数")
+                            .tag("pool", name)
+                            .register(registry);
+                });
+    }
+}
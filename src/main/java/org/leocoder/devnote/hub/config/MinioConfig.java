@@ -1,16 +1,26 @@
 package org.leocoder.devnote.hub.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import io.swagger.annotations.ApiModelProperty;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.leocoder.devnote.hub.enums.FileCategoryEnum;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author : 程序员Leo
@@ -72,44 +82,194 @@ public class MinioConfig {
     @ApiModelProperty("允许上传的视频扩展名")
     private String allowedVideoExtensions = "mp4,avi,mov,wmv,flv,mkv";
 
+    /**
+     * 是否启用内容寻址存储，相同内容只存储一份
+     */
+    @ApiModelProperty("是否启用内容寻址存储")
+    private boolean contentAddressed = false;
+
+    /**
+     * 内容哈希本地索引的最大条目数
+     */
+    @ApiModelProperty("内容哈希本地索引的最大条目数")
+    private long contentIndexSize = 100000;
+
+    /**
+     * 分片上传的分片大小（字节），MinIO要求除最后一片外不小于5MB
+     */
+    @ApiModelProperty("分片上传的分片大小（字节）")
+    private long multipartPartSize = 8L * 1024 * 1024;
+
+    /**
+     * 分片上传允许的最大文件大小（字节）
+     */
+    @ApiModelProperty("分片上传允许的最大文件大小（字节）")
+    private long multipartMaxSize = 5L * 1024 * 1024 * 1024;
+
+    /**
+     * 分片上传任务的过期时间（小时），超时未完成的任务状态会被清理
+     */
+    @ApiModelProperty("分片上传任务的过期时间（小时）")
+    private long multipartExpireHours = 24;
+
+    /**
+     * 预签名URL的默认过期时间（秒）
+     */
+    @ApiModelProperty("预签名URL的默认过期时间（秒）")
+    private int presignedExpiry = 900;
+
+    /**
+     * 文件存在性缓存：存在结果的缓存时间（秒）
+     */
+    @ApiModelProperty("文件存在性缓存：存在结果的缓存时间（秒）")
+    private long existCacheHitTtl = 300;
+
+    /**
+     * 文件存在性缓存：不存在结果的缓存时间（秒），较短以便尽快感知其他节点的上传
+     */
+    @ApiModelProperty("文件存在性缓存：不存在结果的缓存时间（秒）")
+    private long existCacheMissTtl = 10;
+
+    /**
+     * 文件存在性缓存的最大条目数
+     */
+    @ApiModelProperty("文件存在性缓存的最大条目数")
+    private long existCacheSize = 100000;
+
+    /**
+     * 对象元数据缓存时间（秒），下载和拖动播放时避免每个Range请求都statObject
+     */
+    @ApiModelProperty("对象元数据缓存时间（秒）")
+    private long statCacheTtl = 30;
+
+    /**
+     * 下载时的读写缓冲区大小（字节）
+     */
+    @ApiModelProperty("下载时的读写缓冲区大小（字节）")
+    private int downloadBufferSize = 64 * 1024;
+
+    /**
+     * 下载响应的缓存时间（秒），对象名由UUID或内容哈希生成，内容不会变化
+     */
+    @ApiModelProperty("下载响应的缓存时间（秒）")
+    private long downloadMaxAge = 86400;
+
+    /**
+     * 扩展名白名单的预计算结果，配置绑定或刷新时整体替换
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile ExtensionRules extensionRules =
+            ExtensionRules.of(allowedImageExtensions, allowedDocumentExtensions, allowedVideoExtensions);
+
+    public synchronized void setAllowedImageExtensions(String allowedImageExtensions) {
+        this.allowedImageExtensions = allowedImageExtensions;
+        rebuildExtensionRules();
+    }
+
+    public synchronized void setAllowedDocumentExtensions(String allowedDocumentExtensions) {
+        this.allowedDocumentExtensions = allowedDocumentExtensions;
+        rebuildExtensionRules();
+    }
+
+    public synchronized void setAllowedVideoExtensions(String allowedVideoExtensions) {
+        this.allowedVideoExtensions = allowedVideoExtensions;
+        rebuildExtensionRules();
+    }
+
+    /**
+     * 判断扩展名是否在任一白名单中
+     *
+     * @param extension 文件扩展名（不含点）
+     */
+    public boolean isAllowedExtension(String extension) {
+        return extension != null && extensionRules.all.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 判断扩展名是否在指定类别的白名单中
+     *
+     * @param category  文件类别
+     * @param extension 文件扩展名（不含点）
+     */
+    public boolean isAllowedExtension(FileCategoryEnum category, String extension) {
+        return extension != null
+                && extensionRules.byCategory.get(category).contains(extension.toLowerCase(Locale.ROOT));
+    }
+
     /**
      * 获取允许的图片扩展名列表
      */
     public List<String> getAllowedImageExtensionList() {
-        return Arrays.stream(allowedImageExtensions.split(","))
-                .map(String::trim)
-                .collect(Collectors.toList());
+        return List.copyOf(extensionRules.byCategory.get(FileCategoryEnum.IMAGE));
     }
 
     /**
      * 获取允许的文档扩展名列表
      */
     public List<String> getAllowedDocumentExtensionList() {
-        return Arrays.stream(allowedDocumentExtensions.split(","))
-                .map(String::trim)
-                .collect(Collectors.toList());
+        return List.copyOf(extensionRules.byCategory.get(FileCategoryEnum.DOCUMENT));
     }
 
     /**
      * 获取允许的视频扩展名列表
      */
     public List<String> getAllowedVideoExtensionList() {
-        return Arrays.stream(allowedVideoExtensions.split(","))
-                .map(String::trim)
-                .collect(Collectors.toList());
+        return List.copyOf(extensionRules.byCategory.get(FileCategoryEnum.VIDEO));
     }
 
     /**
      * 获取所有允许的文件扩展名列表
      */
     public List<String> getAllAllowedExtensions() {
-        return Stream.concat(
-                Stream.concat(
-                        getAllowedImageExtensionList().stream(),
-                        getAllowedDocumentExtensionList().stream()
-                ),
-                getAllowedVideoExtensionList().stream()
-        ).collect(Collectors.toList());
+        return List.copyOf(extensionRules.all);
+    }
+
+    /**
+     * 根据当前配置重建白名单，单次volatile写入保证读取方看到的是完整的新规则
+     */
+    private void rebuildExtensionRules() {
+        this.extensionRules = ExtensionRules.of(allowedImageExtensions, allowedDocumentExtensions, allowedVideoExtensions);
+    }
+
+    /**
+     * 不可变的扩展名白名单
+     */
+    private static final class ExtensionRules {
+
+        private final Map<FileCategoryEnum, Set<String>> byCategory;
+        private final Set<String> all;
+
+        private ExtensionRules(Map<FileCategoryEnum, Set<String>> byCategory, Set<String> all) {
+            this.byCategory = byCategory;
+            this.all = all;
+        }
+
+        static ExtensionRules of(String image, String document, String video) {
+            Map<FileCategoryEnum, Set<String>> byCategory = new EnumMap<>(FileCategoryEnum.class);
+            byCategory.put(FileCategoryEnum.IMAGE, parse(image));
+            byCategory.put(FileCategoryEnum.DOCUMENT, parse(document));
+            byCategory.put(FileCategoryEnum.VIDEO, parse(video));
+            Set<String> all = new LinkedHashSet<>();
+            byCategory.values().forEach(all::addAll);
+            return new ExtensionRules(Collections.unmodifiableMap(byCategory), Collections.unmodifiableSet(all));
+        }
+
+        private static Set<String> parse(String extensions) {
+            if (extensions == null || extensions.isEmpty()) {
+                return Collections.emptySet();
+            }
+            Set<String> result = new LinkedHashSet<>();
+            for (String extension : extensions.split(",")) {
+                String trimmed = extension.trim().toLowerCase(Locale.ROOT);
+                if (!trimmed.isEmpty()) {
+                    result.add(trimmed);
+                }
+            }
+            return Collections.unmodifiableSet(result);
+        }
     }
 
     /**
@@ -122,4 +282,23 @@ public class MinioConfig {
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    /**
+     * 创建MinioAsyncClient Bean，用于批量并发请求
+     */
+    @Bean
+    public MinioAsyncClient minioAsyncClient() {
+        return MinioAsyncClient.builder()
+                .endpoint(endpoint)
+                .credentials(accessKey, secretKey)
+                .build();
+    }
+
+    /**
+     * 创建MinIO分片上传客户端Bean
+     */
+    @Bean
+    public MinioMultipartClient minioMultipartClient() {
+        return new MinioMultipartClient(minioAsyncClient());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package org.leocoder.devnote.hub.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Part;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-17
+ * @description : MinIO分片上传客户端
+ * <p>
+ * MinioClient未公开分片上传的底层接口，这里继承MinioAsyncClient并暴露创建、上传分片、合并、取消四个操作。
+ */
+public class MinioMultipartClient extends MinioAsyncClient {
+
+    public MinioMultipartClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * 创建分片上传任务
+     *
+     * @param bucket           存储桶
+     * @param objectName       对象名
+     * @param contentType      内容类型
+     * @param originalFilename 原始文件名，写入对象元数据
+     * @return uploadId
+     */
+    public String createMultipartUpload(String bucket, String objectName, String contentType,
+                                        String originalFilename) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", contentType);
+        headers.put("x-amz-meta-originalFilename", originalFilename);
+        return createMultipartUploadAsync(bucket, null, objectName, headers, null)
+                .get()
+                .result()
+                .uploadId();
+    }
+
+    /**
+     * 上传单个分片
+     * 分片先按声明的大小读入字节数组再发送，数据不足时在请求MinIO之前失败；
+     * 分片大小由调用方按任务约定校验，内存占用不超过一个分片
+     *
+     * @param bucket     存储桶
+     * @param objectName 对象名
+     * @param uploadId   分片上传任务ID
+     * @param partNumber 分片序号，从1开始
+     * @param data       分片数据
+     * @param length     分片大小
+     * @return 分片ETag
+     */
+    public String uploadPart(String bucket, String objectName, String uploadId, int partNumber,
+                             InputStream data, long length) throws Exception {
+        byte[] buffer = new byte[Math.toIntExact(length)];
+        int read = data.readNBytes(buffer, 0, buffer.length);
+        if (read < buffer.length) {
+            throw new IOException("分片数据不完整，期望: " + length + "，实际: " + read);
+        }
+        return uploadPartAsync(bucket, null, objectName, buffer, length, uploadId, partNumber, null, null)
+                .get()
+                .etag();
+    }
+
+    /**
+     * 合并分片
+     *
+     * @param bucket     存储桶
+     * @param objectName 对象名
+     * @param uploadId   分片上传任务ID
+     * @param parts      按序号排列的分片列表
+     */
+    public void completeMultipartUpload(String bucket, String objectName, String uploadId, Part[] parts) throws Exception {
+        completeMultipartUploadAsync(bucket, null, objectName, uploadId, parts, null, null).get();
+    }
+
+    /**
+     * 取消分片上传任务，清理已上传的分片
+     *
+     * @param bucket     存储桶
+     * @param objectName 对象名
+     * @param uploadId   分片上传任务ID
+     */
+    public void abortMultipartUpload(String bucket, String objectName, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null).get();
+    }
+}
@@ -0,0 +1,67 @@
+package org.leocoder.devnote.hub.config;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 接口限流配置类
+ * <p>
+ * 每条规则包含两层限制：按用户（未登录时按IP）在Redis中维护的令牌桶，限制请求速率；
+ * 以及单节点的并发上限，限制同时处理的请求数。超出任一限制时直接返回429，不排队。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * 是否启用限流
+     */
+    @ApiModelProperty("是否启用限流")
+    private boolean enabled = true;
+
+    /**
+     * Redis不可用时是否放行请求（只保留单节点并发限制）
+     */
+    @ApiModelProperty("Redis不可用时是否放行请求")
+    private boolean failOpen = true;
+
+    /**
+     * 限流规则：规则名称 -> 规则，名称与@RateLimit注解的值对应
+     */
+    @ApiModelProperty("限流规则")
+    private Map<String, Rule> rules = new LinkedHashMap<>();
+
+    /**
+     * 限流规则
+     */
+    @Data
+    public static class Rule {
+
+        /**
+         * 令牌桶容量，即单个用户允许的突发请求数
+         */
+        @ApiModelProperty("令牌桶容量")
+        private int capacity = 10;
+
+        /**
+         * 每秒补充的令牌数，即单个用户的持续请求速率
+         */
+        @ApiModelProperty("每秒补充的令牌数")
+        private double refillPerSecond = 1;
+
+        /**
+         * 单节点同时处理的请求数上限
+         */
+        @ApiModelProperty("单节点同时处理的请求数上限")
+        private int maxConcurrent = 16;
+    }
+}
@@ -0,0 +1,94 @@
+package org.leocoder.devnote.hub.config;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.leocoder.devnote.hub.utils.VirtualThreads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.servlet.Filter;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 虚拟线程配置类
+ * <p>
+ * 开启后Tomcat请求处理和Markdown图片下载上传都运行在虚拟线程上，阻塞的MinIO和HTTP调用不再占用平台线程。
+ * 请求并发不再受max-threads限制，改由信号量控制；需要运行在Java 21及以上（可使用jdk21 profile编译），
+ * 低版本运行时会忽略该配置并继续使用平台线程池。
+ */
+@Slf4j
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "virtual-threads")
+public class VirtualThreadConfig {
+
+    /**
+     * 是否启用虚拟线程
+     */
+    @ApiModelProperty("是否启用虚拟线程")
+    private boolean enabled = false;
+
+    /**
+     * 启用虚拟线程后同时处理的最大请求数，超出的请求排队等待
+     */
+    @ApiModelProperty("启用虚拟线程后同时处理的最大请求数")
+    private int maxConcurrentRequests = 2000;
+
+    /**
+     * 虚拟线程是否实际生效：已开启且运行时支持
+     */
+    public boolean isActive() {
+        return enabled && VirtualThreads.isSupported();
+    }
+
+    /**
+     * Tomcat请求处理改用虚拟线程执行器
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "virtual-threads", name = "enabled", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (!VirtualThreads.isSupported()) {
+                log.warn("当前Java版本不支持虚拟线程，继续使用平台线程池: {}", Runtime.version());
+                return;
+            }
+            protocolHandler.setExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor("http-vt-"));
+            log.info("Tomcat请求处理已切换为虚拟线程，最大并发请求数: {}", maxConcurrentRequests);
+        };
+    }
+
+    /**
+     * 以信号量限制同时处理的请求数，替代线程池大小的限制
+     * 运行在虚拟线程上，等待许可不会占用平台线程
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "virtual-threads", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<Filter> virtualThreadConcurrencyFilter() {
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrentRequests), true);
+        Filter filter = (request, response, chain) -> {
+            if (!VirtualThreads.isSupported()) {
+                chain.doFilter(request, response);
+                return;
+            }
+            permits.acquireUninterruptibly();
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                permits.release();
+            }
+        };
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
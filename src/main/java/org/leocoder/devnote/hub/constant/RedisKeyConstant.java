@@ -0,0 +1,48 @@
+package org.leocoder.devnote.hub.constant;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-17
+ * @description : Redis键常量
+ */
+public class RedisKeyConstant {
+
+    /**
+     * 分片上传任务信息，参数为uploadId
+     */
+    public static final String MULTIPART_UPLOAD_KEY = "devnote:file:multipart:%s";
+
+    /**
+     * 分片上传已完成的分片（分片序号 -> ETag），参数为uploadId
+     */
+    public static final String MULTIPART_PARTS_KEY = "devnote:file:multipart:%s:parts";
+
+    /**
+     * 已签发的预签名上传凭证（对象名 -> 签发用户标识），参数为对象名
+     */
+    public static final String PRESIGNED_UPLOAD_KEY = "devnote:file:presigned:%s";
+
+    /**
+     * 内容寻址对象的引用（持有人标识 -> 持有的引用数），参数为内容SHA-256
+     */
+    public static final String CONTENT_REF_KEY = "devnote:file:content:refs:%s";
+
+    /**
+     * 外部图片来源 -> 已上传对象，参数为来源URL的SHA-256
+     */
+    public static final String MARKDOWN_IMAGE_KEY = "devnote:markdown:image:%s";
+
+    /**
+     * Markdown异步处理任务状态，参数为jobId
+     */
+    public static final String MARKDOWN_JOB_KEY = "devnote:markdown:job:%s";
+
+    /**
+     * 接口限流令牌桶，参数为规则名称和用户标识
+     */
+    public static final String RATE_LIMIT_KEY = "devnote:rate-limit:%s:%s";
+
+    private RedisKeyConstant() {
+    }
+}
@@ -4,17 +4,33 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.annotation.RateLimit;
 import org.leocoder.devnote.hub.common.Result;
 import org.leocoder.devnote.hub.common.ResultUtils;
+import org.leocoder.devnote.hub.domain.dto.file.FileBatchRequest;
+import org.leocoder.devnote.hub.domain.dto.file.MultipartInitRequest;
+import org.leocoder.devnote.hub.domain.dto.file.PresignedUploadRequest;
 import org.leocoder.devnote.hub.domain.vo.file.FileUploadVO;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownJobVO;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownProcessVO;
+import org.leocoder.devnote.hub.domain.vo.file.MultipartUploadVO;
+import org.leocoder.devnote.hub.domain.vo.file.PresignedUploadVO;
 import org.leocoder.devnote.hub.exception.BusinessException;
 import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.leocoder.devnote.hub.service.impl.FileDownloadService;
 import org.leocoder.devnote.hub.service.impl.FileService;
+import org.leocoder.devnote.hub.service.impl.MarkdownJobService;
 import org.leocoder.devnote.hub.service.impl.MarkdownService;
+import org.leocoder.devnote.hub.service.impl.MultipartUploadService;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
 /**
  * @author : 程序员Leo
  * @version 1.0
@@ -32,7 +48,14 @@ public class FileController {
 
     private final MarkdownService markdownService;
 
+    private final MarkdownJobService markdownJobService;
+
+    private final MultipartUploadService multipartUploadService;
+
+    private final FileDownloadService fileDownloadService;
+
     @ApiOperation("上传图片")
+    @RateLimit("image")
     @PostMapping(value = "/upload/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public Result<FileUploadVO> uploadImage(@RequestParam("file") MultipartFile file) {
         FileUploadVO result = fileService.uploadImage(file);
@@ -40,6 +63,7 @@ public class FileController {
     }
 
     @ApiOperation("上传文档")
+    @RateLimit("document")
     @PostMapping(value = "/upload/document", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public Result<FileUploadVO> uploadDocument(@RequestParam("file") MultipartFile file) {
         FileUploadVO result = fileService.uploadDocument(file);
@@ -47,20 +71,118 @@ public class FileController {
     }
 
     @ApiOperation("上传Markdown文件")
+    @RateLimit("markdown")
     @PostMapping(value = "/upload/markdown", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public Result<FileUploadVO> uploadMarkdown(@RequestParam("file") MultipartFile file) {
 
         // 验证文件扩展名
-        String extension = getFileExtension(file.getOriginalFilename());
-        if (!extension.equalsIgnoreCase("md") && !extension.equalsIgnoreCase("markdown")) {
-            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文件类型，请上传Markdown文件");
-        }
+        checkMarkdownFile(file);
 
         // 处理并上传Markdown文件
         FileUploadVO result = markdownService.processAndUploadMarkdown(file);
         return ResultUtils.success(result);
     }
 
+    @ApiOperation("上传Markdown文件并返回处理报告")
+    @RateLimit("markdown")
+    @PostMapping(value = "/upload/markdown/report", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Result<MarkdownProcessVO> uploadMarkdownWithReport(@RequestParam("file") MultipartFile file,
+                                                              @RequestParam(value = "includeContent", defaultValue = "false") boolean includeContent) {
+        checkMarkdownFile(file);
+        MarkdownProcessVO result = markdownService.processAndUploadMarkdownWithReport(
+                file, file.getOriginalFilename(), file.getSize(), includeContent, fileService.getOwnerIdentity(),
+                MarkdownService.ProgressListener.NONE);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("异步上传Markdown文件，立即返回任务ID")
+    @RateLimit("markdown")
+    @PostMapping(value = "/upload/markdown/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Result<MarkdownJobVO> uploadMarkdownAsync(@RequestParam("file") MultipartFile file) {
+        checkMarkdownFile(file);
+        MarkdownJobVO result = markdownJobService.submit(file);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("查询Markdown异步处理任务")
+    @GetMapping("/markdown/jobs/{jobId}")
+    public Result<MarkdownJobVO> getMarkdownJob(@PathVariable String jobId) {
+        MarkdownJobVO result = markdownJobService.getJob(jobId);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("初始化分片上传")
+    @RateLimit("multipart-init")
+    @PostMapping("/multipart/init")
+    public Result<MultipartUploadVO> initMultipartUpload(@RequestBody MultipartInitRequest request) {
+        MultipartUploadVO result = multipartUploadService.initUpload(request);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("上传分片，请求体为分片的原始字节")
+    @RateLimit("multipart-part")
+    @PutMapping(value = "/multipart/{uploadId}/parts/{partNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Result<Boolean> uploadPart(@PathVariable("uploadId") String uploadId,
+                                      @PathVariable("partNumber") int partNumber,
+                                      HttpServletRequest request) throws IOException {
+        boolean result = multipartUploadService.uploadPart(uploadId, partNumber,
+                request.getInputStream(), request.getContentLengthLong());
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("查询分片上传状态，用于断点续传")
+    @GetMapping("/multipart/{uploadId}")
+    public Result<MultipartUploadVO> getMultipartUpload(@PathVariable("uploadId") String uploadId) {
+        MultipartUploadVO result = multipartUploadService.getUploadStatus(uploadId);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("完成分片上传")
+    @PostMapping("/multipart/{uploadId}/complete")
+    public Result<FileUploadVO> completeMultipartUpload(@PathVariable("uploadId") String uploadId) {
+        FileUploadVO result = multipartUploadService.completeUpload(uploadId);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("取消分片上传")
+    @DeleteMapping("/multipart/{uploadId}")
+    public Result<Boolean> abortMultipartUpload(@PathVariable("uploadId") String uploadId) {
+        boolean result = multipartUploadService.abortUpload(uploadId);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("获取预签名上传URL，客户端直接上传到对象存储")
+    @RateLimit("presigned")
+    @PostMapping("/presigned/upload")
+    public Result<PresignedUploadVO> createPresignedUpload(@RequestBody PresignedUploadRequest request) {
+        PresignedUploadVO result = fileService.createPresignedUpload(request.getFileName(), request.getExpiry());
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("预签名上传完成回调")
+    @PostMapping("/presigned/complete")
+    public Result<FileUploadVO> completePresignedUpload(@RequestParam("objectName") String objectName,
+                                                        @RequestParam(value = "fileName", required = false) String fileName) {
+        FileUploadVO result = fileService.completePresignedUpload(objectName, fileName);
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("获取预签名下载URL")
+    @GetMapping("/presigned/download")
+    public Result<String> getPresignedDownloadUrl(@RequestParam("objectName") String objectName,
+                                                  @RequestParam(value = "expiry", defaultValue = "900") int expiry) {
+        String url = fileService.getFileUrl(objectName, Math.max(1, expiry));
+        return ResultUtils.success(url);
+    }
+
+    @ApiOperation("下载文件，支持Range分段读取和条件请求")
+    @GetMapping("/download")
+    public void download(@RequestParam("objectName") String objectName,
+                         @RequestParam(value = "attachment", defaultValue = "false") boolean attachment,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileDownloadService.download(objectName, attachment, request, response);
+    }
+
     @ApiOperation("删除文件")
     @DeleteMapping("")
     public Result<Boolean> deleteFile(@RequestParam("objectName") String objectName) {
@@ -75,6 +197,30 @@ public class FileController {
         return ResultUtils.success(exists);
     }
 
+    @ApiOperation("批量删除文件")
+    @PostMapping("/batch/delete")
+    public Result<Map<String, Boolean>> deleteFiles(@RequestBody FileBatchRequest request) {
+        Map<String, Boolean> result = fileService.deleteFiles(request.getObjectNames());
+        return ResultUtils.success(result);
+    }
+
+    @ApiOperation("批量检查文件是否存在")
+    @PostMapping("/batch/exists")
+    public Result<Map<String, Boolean>> batchFileExist(@RequestBody FileBatchRequest request) {
+        Map<String, Boolean> result = fileService.batchFileExist(request.getObjectNames());
+        return ResultUtils.success(result);
+    }
+
+    /**
+     * 验证是否为Markdown文件
+     */
+    private void checkMarkdownFile(MultipartFile file) {
+        String extension = getFileExtension(file.getOriginalFilename());
+        if (!extension.equalsIgnoreCase("md") && !extension.equalsIgnoreCase("markdown")) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文件类型，请上传Markdown文件");
+        }
+    }
+
     /**
      * 获取文件扩展名
      */
@@ -0,0 +1,75 @@
+package org.leocoder.devnote.hub.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.annotation.RateLimit;
+import org.leocoder.devnote.hub.config.ImageConfig;
+import org.leocoder.devnote.hub.service.impl.ImagePreviewService;
+import org.leocoder.devnote.hub.service.impl.ImagePreviewService.Preview;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 文件预览
+ */
+@Slf4j
+@RestController
+@RequestMapping("/file/preview")
+@RequiredArgsConstructor
+@Api(tags = "文件预览")
+public class FilePreviewController {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final ImagePreviewService imagePreviewService;
+
+    private final ImageConfig imageConfig;
+
+    @ApiOperation("图片预览，按宽高等比缩小并按指定质量编码，参数向上取到配置的档位")
+    @RateLimit("preview")
+    @GetMapping("/**")
+    public ResponseEntity<byte[]> preview(@ApiParam("最大宽度(像素)") @RequestParam(value = "w", required = false) Integer width,
+                                          @ApiParam("最大高度(像素)") @RequestParam(value = "h", required = false) Integer height,
+                                          @ApiParam("压缩质量(1-100)") @RequestParam(value = "q", required = false) Integer quality,
+                                          HttpServletRequest request) {
+        // 请求路径中/file/preview/之后的部分即为对象名
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String objectName = PATH_MATCHER.extractPathWithinPattern(pattern, path);
+
+        Preview preview = imagePreviewService.getPreview(objectName, width, height, quality);
+
+        CacheControl cacheControl = CacheControl.maxAge(imageConfig.getPreviewMaxAge(), TimeUnit.SECONDS).cachePublic();
+        if (new ServletWebRequest(request).checkNotModified(preview.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(preview.getEtag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(preview.getContentType() != null
+                        ? MediaType.parseMediaType(preview.getContentType()) : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(preview.getData().length)
+                .eTag(preview.getEtag())
+                .cacheControl(cacheControl)
+                .body(preview.getData());
+    }
+}
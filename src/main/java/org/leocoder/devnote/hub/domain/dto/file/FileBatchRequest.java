@@ -0,0 +1,27 @@
+package org.leocoder.devnote.hub.domain.dto.file;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 文件批量操作请求
+ */
+@Data
+@ApiModel(description = "文件批量操作请求参数")
+public class FileBatchRequest implements Serializable {
+
+    /**
+     * 对象名称列表
+     */
+    @ApiModelProperty(value = "对象名称列表，单次最多1000个", required = true)
+    private List<String> objectNames;
+
+    private static final long serialVersionUID = 1L;
+}
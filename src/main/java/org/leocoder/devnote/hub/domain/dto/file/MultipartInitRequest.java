@@ -0,0 +1,38 @@
+package org.leocoder.devnote.hub.domain.dto.file;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-17
+ * @description : 分片上传初始化请求
+ */
+@Data
+@ApiModel(description = "分片上传初始化请求参数")
+public class MultipartInitRequest implements Serializable {
+
+    /**
+     * 原始文件名
+     */
+    @ApiModelProperty(value = "原始文件名", required = true)
+    private String fileName;
+
+    /**
+     * 文件大小(字节)
+     */
+    @ApiModelProperty(value = "文件大小(字节)", required = true)
+    private Long fileSize;
+
+    /**
+     * 文件类型，为空时按扩展名推断
+     */
+    @ApiModelProperty("文件类型，为空时按扩展名推断")
+    private String contentType;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,32 @@
+package org.leocoder.devnote.hub.domain.dto.file;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-17
+ * @description : 预签名上传请求
+ */
+@Data
+@ApiModel(description = "预签名上传请求参数")
+public class PresignedUploadRequest implements Serializable {
+
+    /**
+     * 原始文件名
+     */
+    @ApiModelProperty(value = "原始文件名", required = true)
+    private String fileName;
+
+    /**
+     * 过期时间(秒)，为空时使用默认配置
+     */
+    @ApiModelProperty("过期时间(秒)，为空时使用默认配置")
+    private Integer expiry;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -7,6 +7,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 /**
  * @author : 程序员Leo
  * @version 1.0
@@ -55,4 +57,22 @@ public class FileUploadVO {
      */
     @ApiModelProperty("文件扩展名")
     private String extension;
-}
\ No newline at end of file
+
+    /**
+     * 图片宽度(像素)，非图片时为空
+     */
+    @ApiModelProperty("图片宽度(像素)")
+    private Integer width;
+
+    /**
+     * 图片高度(像素)，非图片时为空
+     */
+    @ApiModelProperty("图片高度(像素)")
+    private Integer height;
+
+    /**
+     * 图片缩略图：尺寸(最长边像素) -> 访问URL
+     */
+    @ApiModelProperty("图片缩略图，尺寸(最长边像素) -> 访问URL")
+    private Map<Integer, String> variants;
+}
@@ -0,0 +1,82 @@
+package org.leocoder.devnote.hub.domain.vo.file;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Markdown单个图片处理结果VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel("Markdown图片处理结果")
+public class MarkdownImageVO {
+
+    /**
+     * 图片类型
+     */
+    @ApiModelProperty("图片类型：base64/url/special")
+    private String type;
+
+    /**
+     * 来源地址
+     */
+    @ApiModelProperty("来源地址，Base64图片为空")
+    private String source;
+
+    /**
+     * 来源域名
+     */
+    @ApiModelProperty("来源域名，Base64图片为空")
+    private String host;
+
+    /**
+     * 上传后的访问URL
+     */
+    @ApiModelProperty("上传后的访问URL，处理失败时为空")
+    private String url;
+
+    /**
+     * 图片大小（字节）
+     */
+    @ApiModelProperty("图片大小（字节），复用已上传图片时为空")
+    private Long size;
+
+    /**
+     * 下载耗时（毫秒）
+     */
+    @ApiModelProperty("下载耗时（毫秒），从发起请求到收到响应头；Base64图片为解码耗时")
+    private Long downloadMs;
+
+    /**
+     * 上传耗时（毫秒）
+     */
+    @ApiModelProperty("上传耗时（毫秒），外部图片边下载边上传，包含读取响应体的时间")
+    private Long uploadMs;
+
+    /**
+     * 是否命中缓存
+     */
+    @ApiModelProperty("是否复用了已上传的图片（来源缓存命中或条件请求未修改）")
+    private Boolean cacheHit;
+
+    /**
+     * 是否处理成功
+     */
+    @ApiModelProperty("是否处理成功")
+    private Boolean success;
+
+    /**
+     * 失败原因
+     */
+    @ApiModelProperty("失败原因")
+    private String failureReason;
+}
@@ -0,0 +1,76 @@
+package org.leocoder.devnote.hub.domain.vo.file;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Markdown异步处理任务VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel("Markdown异步处理任务")
+public class MarkdownJobVO {
+
+    /**
+     * 任务ID
+     */
+    @ApiModelProperty("任务ID")
+    private String jobId;
+
+    /**
+     * 任务状态
+     */
+    @ApiModelProperty("任务状态：pending/processing/success/failed")
+    private String status;
+
+    /**
+     * 原始文件名
+     */
+    @ApiModelProperty("原始文件名")
+    private String fileName;
+
+    /**
+     * 已发现的图片数量
+     */
+    @ApiModelProperty("已发现的图片数量，流式处理时随进度增长")
+    private Integer imageTotal;
+
+    /**
+     * 已处理的图片数量
+     */
+    @ApiModelProperty("已处理的图片数量（含失败）")
+    private Integer imageProcessed;
+
+    /**
+     * 处理失败的图片数量
+     */
+    @ApiModelProperty("处理失败的图片数量")
+    private Integer imageFailed;
+
+    /**
+     * 失败原因
+     */
+    @ApiModelProperty("失败原因")
+    private String errorMessage;
+
+    /**
+     * 处理结果
+     */
+    @ApiModelProperty("处理结果，任务成功后返回")
+    private MarkdownProcessVO result;
+
+    /**
+     * 任务创建时间（毫秒时间戳）
+     */
+    @ApiModelProperty("任务创建时间（毫秒时间戳）")
+    private Long createTime;
+}
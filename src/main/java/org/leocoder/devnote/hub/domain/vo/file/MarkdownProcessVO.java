@@ -25,13 +25,13 @@ public class MarkdownProcessVO {
     /**
      * 原始Markdown内容
      */
-    @ApiModelProperty("原始Markdown内容")
+    @ApiModelProperty("原始Markdown内容，仅在请求时返回")
     private String originalContent;
 
     /**
      * 处理后的Markdown内容
      */
-    @ApiModelProperty("处理后的Markdown内容（图片URL已替换）")
+    @ApiModelProperty("处理后的Markdown内容（图片URL已替换），仅在请求时返回")
     private String processedContent;
 
     /**
@@ -51,4 +51,52 @@ public class MarkdownProcessVO {
      */
     @ApiModelProperty("处理后的图片URL列表")
     private List<String> imageUrls;
+
+    /**
+     * 每个图片的处理结果
+     */
+    @ApiModelProperty("每个图片的处理结果")
+    private List<MarkdownImageVO> images;
+
+    /**
+     * 处理成功的图片数量
+     */
+    @ApiModelProperty("处理成功的图片数量")
+    private int successCount;
+
+    /**
+     * 处理失败的图片数量
+     */
+    @ApiModelProperty("处理失败的图片数量")
+    private int failedCount;
+
+    /**
+     * 复用已上传图片的数量
+     */
+    @ApiModelProperty("复用已上传图片的数量")
+    private int cacheHitCount;
+
+    /**
+     * 本次上传的图片总大小（字节）
+     */
+    @ApiModelProperty("本次上传的图片总大小（字节）")
+    private long totalBytes;
+
+    /**
+     * 图片下载耗时合计（毫秒）
+     */
+    @ApiModelProperty("图片下载耗时合计（毫秒），图片并发处理，合计值会大于总耗时")
+    private long downloadMs;
+
+    /**
+     * 图片上传耗时合计（毫秒）
+     */
+    @ApiModelProperty("图片上传耗时合计（毫秒）")
+    private long uploadMs;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    @ApiModelProperty("处理总耗时（毫秒）")
+    private long totalMs;
 }
\ No newline at end of file
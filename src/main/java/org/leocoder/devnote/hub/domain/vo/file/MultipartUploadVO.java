@@ -0,0 +1,66 @@
+package org.leocoder.devnote.hub.domain.vo.file;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-17
+ * @description : 分片上传任务VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel("分片上传任务")
+public class MultipartUploadVO {
+
+    /**
+     * 分片上传任务ID
+     */
+    @ApiModelProperty("分片上传任务ID")
+    private String uploadId;
+
+    /**
+     * 存储路径
+     */
+    @ApiModelProperty("存储路径")
+    private String objectName;
+
+    /**
+     * 原始文件名
+     */
+    @ApiModelProperty("原始文件名")
+    private String fileName;
+
+    /**
+     * 文件大小(字节)
+     */
+    @ApiModelProperty("文件大小(字节)")
+    private Long fileSize;
+
+    /**
+     * 分片大小(字节)，最后一个分片可能更小
+     */
+    @ApiModelProperty("分片大小(字节)，最后一个分片可能更小")
+    private Long partSize;
+
+    /**
+     * 分片总数
+     */
+    @ApiModelProperty("分片总数")
+    private Integer partCount;
+
+    /**
+     * 已上传的分片序号，断点续传时跳过这些分片
+     */
+    @ApiModelProperty("已上传的分片序号，断点续传时跳过这些分片")
+    private List<Integer> uploadedParts;
+}
@@ -0,0 +1,46 @@
+package org.leocoder.devnote.hub.domain.vo.file;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-17
+ * @description : 预签名上传响应VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel("预签名上传响应")
+public class PresignedUploadVO {
+
+    /**
+     * 存储路径，上传完成后回调时使用
+     */
+    @ApiModelProperty("存储路径，上传完成后回调时使用")
+    private String objectName;
+
+    /**
+     * 预签名上传URL，客户端直接以PUT方式上传文件内容
+     */
+    @ApiModelProperty("预签名上传URL，客户端直接以PUT方式上传文件内容")
+    private String uploadUrl;
+
+    /**
+     * 上传时需要携带的Content-Type
+     */
+    @ApiModelProperty("上传时需要携带的Content-Type")
+    private String contentType;
+
+    /**
+     * 过期时间(秒)
+     */
+    @ApiModelProperty("过期时间(秒)")
+    private Integer expiry;
+}
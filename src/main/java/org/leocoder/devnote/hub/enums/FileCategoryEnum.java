@@ -0,0 +1,25 @@
+package org.leocoder.devnote.hub.enums;
+
+import lombok.Getter;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 上传文件类别枚举，对应配置中的扩展名白名单
+ */
+@Getter
+public enum FileCategoryEnum {
+
+    IMAGE("image", "图片"),
+    DOCUMENT("document", "文档"),
+    VIDEO("video", "视频");
+
+    private final String value;
+    private final String description;
+
+    FileCategoryEnum(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,35 @@
+package org.leocoder.devnote.hub.enums;
+
+import lombok.Getter;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-16
+ * @description : Markdown图片引用类型枚举
+ */
+@Getter
+public enum MarkdownImageTypeEnum {
+
+    // data:image/xxx;base64,... 形式的内嵌图片
+    BASE64("base64", "Base64内嵌图片"),
+
+    // 外部HTTP/HTTPS链接图片
+    URL("url", "外部URL图片"),
+
+    // 形如 ![Image-20240202095614159](https://...) 的截图图片
+    SPECIAL("special", "特殊格式图片");
+
+    private final String value;
+    private final String description;
+
+    /**
+     * 构造函数
+     * @param value 类型标识
+     * @param description 类型描述
+     */
+    MarkdownImageTypeEnum(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,31 @@
+package org.leocoder.devnote.hub.enums;
+
+import lombok.Getter;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Markdown异步处理任务状态枚举
+ */
+@Getter
+public enum MarkdownJobStatusEnum {
+
+    PENDING("pending", "等待处理"),
+    PROCESSING("processing", "处理中"),
+    SUCCESS("success", "处理成功"),
+    FAILED("failed", "处理失败");
+
+    private final String value;
+    private final String description;
+
+    /**
+     * 构造函数
+     * @param value 状态标识
+     * @param description 状态描述
+     */
+    MarkdownJobStatusEnum(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
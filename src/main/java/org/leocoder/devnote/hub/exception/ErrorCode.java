@@ -28,6 +28,8 @@ public enum ErrorCode {
 
     NOT_FOUND_ERROR(404,  "资源不存在"),
 
+    TOO_MANY_REQUESTS(42900, "请求过于频繁"),
+
     UPLOAD_FAILURE(50010, "文件上传失败"),
 
     DELETE_FAILURE(50011, "文件删除失败"),
@@ -0,0 +1,111 @@
+package org.leocoder.devnote.hub.interceptor;
+
+import cn.dev33.satoken.stp.StpUtil;
+import cn.hutool.json.JSONUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.annotation.RateLimit;
+import org.leocoder.devnote.hub.common.ResultUtils;
+import org.leocoder.devnote.hub.config.RateLimitConfig;
+import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.leocoder.devnote.hub.service.impl.FileMetricsService;
+import org.leocoder.devnote.hub.service.impl.RateLimitService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 接口限流拦截器
+ * <p>
+ * 对标注了@RateLimit的接口先检查单节点并发，再检查用户令牌桶，超出限制时立即返回429和Retry-After。
+ * 上传请求体在拦截器之后才解析（multipart延迟解析），被拒绝的请求不会先把文件读到磁盘。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    // 请求属性：已获取的单节点并发许可对应的规则名称
+    private static final String ATTR_PERMIT = RateLimitInterceptor.class.getName() + ".permit";
+
+    // 并发已满时建议的重试等待时间（毫秒）
+    private static final long CONCURRENCY_RETRY_MILLIS = 1000;
+
+    private final RateLimitConfig rateLimitConfig;
+    private final RateLimitService rateLimitService;
+    private final FileMetricsService fileMetricsService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!rateLimitConfig.isEnabled() || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        RateLimit rateLimit = ((HandlerMethod) handler).getMethodAnnotation(RateLimit.class);
+        if (rateLimit == null) {
+            return true;
+        }
+        String name = rateLimit.value();
+        if (rateLimitService.getRule(name) == null) {
+            log.warn("未配置限流规则: {}", name);
+            return true;
+        }
+
+        if (!rateLimitService.tryAcquireLocal(name)) {
+            fileMetricsService.recordRateLimited(name, FileMetricsService.LIMITED_CONCURRENCY);
+            reject(response, CONCURRENCY_RETRY_MILLIS, "服务繁忙，请稍后重试");
+            return false;
+        }
+        long wait = rateLimitService.tryAcquireToken(name, getIdentity(request));
+        if (wait > 0) {
+            rateLimitService.releaseLocal(name);
+            fileMetricsService.recordRateLimited(name, FileMetricsService.LIMITED_RATE);
+            reject(response, wait, "请求过于频繁，请稍后重试");
+            return false;
+        }
+        request.setAttribute(ATTR_PERMIT, name);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object name = request.getAttribute(ATTR_PERMIT);
+        if (name != null) {
+            request.removeAttribute(ATTR_PERMIT);
+            rateLimitService.releaseLocal((String) name);
+        }
+    }
+
+    /**
+     * 获取限流的用户标识：已登录时为用户ID，否则为客户端IP
+     */
+    private String getIdentity(HttpServletRequest request) {
+        if (StpUtil.isLogin()) {
+            return "user:" + StpUtil.getLoginId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * 返回429响应
+     */
+    private void reject(HttpServletResponse response, long retryMillis, String message) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryMillis + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(JSONUtil.toJsonStr(ResultUtils.error(ErrorCode.TOO_MANY_REQUESTS, message)));
+    }
+}
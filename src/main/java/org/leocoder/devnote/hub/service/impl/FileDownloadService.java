@@ -0,0 +1,183 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import io.minio.StatObjectResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.ClientAbortException;
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 文件下载服务
+ * <p>
+ * 从MinIO流式读取对象写入响应，使用固定大小的缓冲区，不在内存中缓存整个文件。
+ * 支持单区间Range请求（视频拖动播放、断点续传）和基于ETag/Last-Modified的条件请求，
+ * Range请求只从MinIO读取对应区间。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileDownloadService {
+
+    private static final String METHOD_HEAD = "HEAD";
+
+    private final FileService fileService;
+    private final MinioConfig minioConfig;
+
+    /**
+     * 下载文件
+     *
+     * @param objectName 对象名称
+     * @param attachment 是否作为附件下载，否则在浏览器中直接打开
+     * @param request    请求
+     * @param response   响应
+     */
+    public void download(String objectName, boolean attachment,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StatObjectResponse stat = fileService.statFile(objectName);
+        String etag = stripQuotes(stat.etag());
+        long lastModified = stat.lastModified().toInstant().toEpochMilli();
+        long size = stat.size();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl
+                .maxAge(minioConfig.getDownloadMaxAge(), TimeUnit.SECONDS)
+                .cachePublic()
+                .getHeaderValue());
+
+        // 条件请求命中时返回304，同时写入ETag和Last-Modified
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        // 解析Range，只支持单个区间，多区间时按完整内容返回
+        long start = 0;
+        long end = size - 1;
+        boolean partial = false;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isIfRangeMatched(request, etag, lastModified)) {
+            List<HttpRange> ranges = parseRanges(rangeHeader);
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+                if (start >= size || start > end) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                partial = true;
+            }
+        }
+
+        long length = size == 0 ? 0 : end - start + 1;
+        response.setContentType(stat.contentType() != null
+                ? stat.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(length);
+        if (attachment) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(getDownloadFilename(objectName, stat), StandardCharsets.UTF_8)
+                    .build()
+                    .toString());
+        }
+        if (partial) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        if (length == 0 || METHOD_HEAD.equals(request.getMethod())) {
+            return;
+        }
+
+        try (InputStream in = fileService.getFileStream(objectName, start, partial ? length : null)) {
+            copy(in, response.getOutputStream());
+        } catch (ClientAbortException e) {
+            // 拖动播放时浏览器会主动断开之前的请求
+            log.debug("下载连接已断开: {}", objectName);
+        }
+    }
+
+    /**
+     * 使用固定大小的缓冲区复制内容，每次读到数据立即写出
+     */
+    private void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[minioConfig.getDownloadBufferSize()];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        out.flush();
+    }
+
+    /**
+     * 判断If-Range条件是否满足，不满足时忽略Range返回完整内容
+     */
+    private boolean isIfRangeMatched(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range要求强校验，弱ETag不匹配
+            return !ifRange.startsWith("W/") && etag.equals(stripQuotes(ifRange));
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified / 1000 <= date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析Range请求头，格式错误时按没有Range处理
+     */
+    private List<HttpRange> parseRanges(String rangeHeader) {
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 获取下载文件名，优先使用上传时记录的原始文件名
+     */
+    private String getDownloadFilename(String objectName, StatObjectResponse stat) {
+        // 元数据键名的大小写取决于MinIO返回的响应头
+        for (Map.Entry<String, String> entry : stat.userMetadata().entrySet()) {
+            if ("originalFilename".equalsIgnoreCase(entry.getKey()) && !entry.getValue().isEmpty()) {
+                return entry.getValue();
+            }
+        }
+        return objectName.substring(objectName.lastIndexOf('/') + 1);
+    }
+
+    private String stripQuotes(String etag) {
+        if (etag != null && etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            return etag.substring(1, etag.length() - 1);
+        }
+        return etag;
+    }
+}
@@ -0,0 +1,220 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownImageVO;
+import org.leocoder.devnote.hub.enums.FileCategoryEnum;
+import org.leocoder.devnote.hub.enums.FileTypeEnum;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 文件与Markdown处理链路的监控指标
+ * <p>
+ * 统一定义指标名称和标签，标签取值都是有限集合（文件类别、结果、图片类型等），不使用对象名或域名，
+ * 避免指标数量随数据增长。直方图和分位数在配置文件中按devnote前缀统一开启。
+ */
+@Service
+@RequiredArgsConstructor
+public class FileMetricsService {
+
+    // 结果标签取值
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+
+    // 删除方式标签取值
+    public static final String DELETE_SINGLE = "single";
+    public static final String DELETE_BATCH = "batch";
+
+    // Markdown处理方式标签取值
+    public static final String REWRITE_STREAMING = "streaming";
+    public static final String REWRITE_IN_MEMORY = "in_memory";
+
+    // 限流拒绝原因标签取值
+    public static final String LIMITED_CONCURRENCY = "concurrency";
+    public static final String LIMITED_RATE = "rate";
+
+    private static final String CATEGORY_MARKDOWN = "markdown";
+    private static final String CATEGORY_OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 开始计时
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * 记录一次对象上传
+     *
+     * @param sample     计时
+     * @param objectName 对象名，用于确定文件类别
+     * @param outcome    结果
+     * @param size       上传字节数，未知时传-1
+     */
+    public void recordUpload(Timer.Sample sample, String objectName, String outcome, long size) {
+        String category = getCategory(objectName);
+        sample.stop(Timer.builder("devnote.file.upload")
+                .description("对象上传耗时")
+                .tag("category", category)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        if (OUTCOME_SUCCESS.equals(outcome) && size >= 0) {
+            DistributionSummary.builder("devnote.file.upload.size")
+                    .description("上传对象大小")
+                    .baseUnit("bytes")
+                    .tag("category", category)
+                    .register(meterRegistry)
+                    .record(size);
+        }
+    }
+
+    /**
+     * 记录一次statObject请求
+     *
+     * @param sample  计时
+     * @param outcome 结果
+     */
+    public void recordStat(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("devnote.file.stat")
+                .description("对象元数据查询耗时")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 记录一次存在性缓存查询
+     *
+     * @param hit 是否命中
+     */
+    public void recordExistCache(boolean hit) {
+        Counter.builder("devnote.file.exist.cache")
+                .description("文件存在性缓存查询次数")
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次删除请求
+     *
+     * @param sample  计时
+     * @param mode    删除方式
+     * @param outcome 结果
+     * @param count   删除的对象数量
+     */
+    public void recordDelete(Timer.Sample sample, String mode, String outcome, int count) {
+        sample.stop(Timer.builder("devnote.file.delete")
+                .description("删除请求耗时")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        Counter.builder("devnote.file.delete.objects")
+                .description("删除的对象数量")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    /**
+     * 记录Markdown中单个图片的处理结果，包括下载、上传阶段耗时和图片大小
+     *
+     * @param image 图片处理结果
+     * @param nanos 总耗时（纳秒）
+     */
+    public void recordImage(MarkdownImageVO image, long nanos) {
+        String kind = image.getType();
+        String outcome = Boolean.TRUE.equals(image.getSuccess()) ? OUTCOME_SUCCESS : OUTCOME_FAILURE;
+        String cache = Boolean.TRUE.equals(image.getCacheHit()) ? "hit" : "miss";
+        Timer.builder("devnote.markdown.image")
+                .description("Markdown图片处理耗时")
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .tag("cache", cache)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (image.getDownloadMs() != null && image.getDownloadMs() > 0) {
+            Timer.builder("devnote.markdown.image.download")
+                    .description("Markdown图片下载耗时（到收到响应头为止）")
+                    .tag("kind", kind)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(image.getDownloadMs(), TimeUnit.MILLISECONDS);
+        }
+        if (image.getUploadMs() != null && image.getUploadMs() > 0) {
+            Timer.builder("devnote.markdown.image.upload")
+                    .description("Markdown图片上传耗时")
+                    .tag("kind", kind)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(image.getUploadMs(), TimeUnit.MILLISECONDS);
+        }
+        if (image.getSize() != null) {
+            DistributionSummary.builder("devnote.markdown.image.size")
+                    .description("Markdown图片大小")
+                    .baseUnit("bytes")
+                    .tag("kind", kind)
+                    .register(meterRegistry)
+                    .record(image.getSize());
+        }
+    }
+
+    /**
+     * 记录一次Markdown文档处理
+     *
+     * @param sample  计时
+     * @param mode    处理方式
+     * @param outcome 结果
+     */
+    public void recordRewrite(Timer.Sample sample, String mode, String outcome) {
+        sample.stop(Timer.builder("devnote.markdown.rewrite")
+                .description("Markdown文档处理并上传的耗时")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 记录一次被限流拒绝的请求
+     *
+     * @param rule   限流规则名称
+     * @param reason 拒绝原因
+     */
+    public void recordRateLimited(String rule, String reason) {
+        Counter.builder("devnote.rate.limited")
+                .description("被限流拒绝的请求数")
+                .tag("rule", rule)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 根据对象名的扩展名确定文件类别
+     */
+    private String getCategory(String objectName) {
+        int dot = objectName.lastIndexOf('.');
+        String extension = dot < 0 ? "" : objectName.substring(dot + 1).toLowerCase();
+        if (FileTypeEnum.isImageExtension(extension)) {
+            return FileCategoryEnum.IMAGE.getValue();
+        } else if (FileTypeEnum.isVideoExtension(extension)) {
+            return FileCategoryEnum.VIDEO.getValue();
+        } else if (FileTypeEnum.MD.getExtension().equals(extension) || "markdown".equals(extension)) {
+            return CATEGORY_MARKDOWN;
+        } else if (FileTypeEnum.isDocumentExtension(extension)) {
+            return FileCategoryEnum.DOCUMENT.getValue();
+        }
+        return CATEGORY_OTHER;
+    }
+}
@@ -1,9 +1,13 @@
 package org.leocoder.devnote.hub.service.impl;
 
+import io.minio.StatObjectResponse;
 import org.leocoder.devnote.hub.domain.vo.file.FileUploadVO;
+import org.leocoder.devnote.hub.domain.vo.file.PresignedUploadVO;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author : 程序员Leo
@@ -46,28 +50,104 @@ public interface FileService {
      * @param inputStream 输入流
      * @param fileName    文件名
      * @param contentType 内容类型
-     * @param size        文件大小
+     * @param size        文件大小，未知时传-1
      * @return 文件上传响应对象
      */
     FileUploadVO uploadFile(InputStream inputStream, String fileName, String contentType, long size);
 
+    /**
+     * 通过InputStream上传文件，内容寻址对象的引用登记到指定持有人
+     * 用于不在请求线程中执行的上传，持有人在请求时获取
+     *
+     * @param inputStream 输入流
+     * @param fileName    文件名
+     * @param contentType 内容类型
+     * @param size        文件大小，未知时传-1
+     * @param owner       引用持有人标识
+     * @return 文件上传响应对象
+     */
+    FileUploadVO uploadFile(InputStream inputStream, String fileName, String contentType, long size, String owner);
+
+    /**
+     * 为持有人登记一次已存储对象的引用，复用已上传的对象地址时调用
+     *
+     * @param objectName 对象名称
+     * @param owner      引用持有人标识
+     * @return 对象是否仍存在，不存在时不能复用该地址
+     */
+    boolean acquireReference(String objectName, String owner);
+
+    /**
+     * 撤销一次为持有人登记的引用，与acquireReference对应
+     * 内容寻址对象释放引用，最后一个引用释放时删除对象；其他对象可能已被其他文档复用，不做处理
+     *
+     * @param objectName 对象名称
+     * @param owner      引用持有人标识
+     */
+    void releaseReference(String objectName, String owner);
+
+    /**
+     * 获取当前请求的用户标识，用作上传凭证的签发人和内容寻址对象的引用持有人
+     *
+     * @return 用户标识
+     */
+    String getOwnerIdentity();
+
     /**
      * 删除文件
+     * 内容寻址对象只释放当前用户持有的一次引用，最后一个引用释放时才删除对象
      *
      * @param objectName 对象名称
-     * @return 是否删除成功
+     * @return 是否删除成功，当前用户未持有内容寻址对象的引用时返回false
      */
     boolean deleteFile(String objectName);
 
+    /**
+     * 删除文件，内容寻址对象释放指定持有人的引用
+     * 用于不在请求线程中执行的删除，持有人在请求时获取
+     *
+     * @param objectName 对象名称
+     * @param owner      引用持有人标识
+     * @return 是否删除成功，持有人未持有内容寻址对象的引用时返回false
+     */
+    boolean deleteFile(String objectName, String owner);
+
+    /**
+     * 批量删除文件
+     * 内容寻址对象按单个删除的规则释放当前用户持有的引用
+     *
+     * @param objectNames 对象名称列表
+     * @return 对象名称 -> 是否删除成功
+     */
+    Map<String, Boolean> deleteFiles(List<String> objectNames);
+
     /**
      * 获取文件访问URL
      *
      * @param objectName 对象名称
-     * @param expiry     过期时间(秒)，-1表示永不过期
+     * @param expiry     过期时间(秒)，-1表示永不过期（公开访问URL），大于0时返回预签名下载URL
      * @return 文件访问URL
      */
     String getFileUrl(String objectName, int expiry);
 
+    /**
+     * 创建预签名上传URL，客户端直接上传到对象存储
+     *
+     * @param fileName 原始文件名
+     * @param expiry   过期时间(秒)，为空时使用默认配置
+     * @return 预签名上传信息
+     */
+    PresignedUploadVO createPresignedUpload(String fileName, Integer expiry);
+
+    /**
+     * 预签名上传完成回调，校验对象后返回文件信息
+     *
+     * @param objectName 对象名称
+     * @param fileName   原始文件名
+     * @return 文件上传响应对象
+     */
+    FileUploadVO completePresignedUpload(String objectName, String fileName);
+
     /**
      * 检查文件是否存在
      *
@@ -76,6 +156,41 @@ public interface FileService {
      */
     boolean isFileExist(String objectName);
 
+    /**
+     * 批量检查文件是否存在
+     *
+     * @param objectNames 对象名称列表
+     * @return 对象名称 -> 是否存在
+     */
+    Map<String, Boolean> batchFileExist(List<String> objectNames);
+
+    /**
+     * 获取文件元数据
+     *
+     * @param objectName 对象名称
+     * @return 对象元数据，不存在时抛出异常
+     */
+    StatObjectResponse statFile(String objectName);
+
+    /**
+     * 获取文件内容，可以只读取指定区间
+     *
+     * @param objectName 对象名称
+     * @param offset     起始位置
+     * @param length     读取长度，为空时读取到末尾
+     * @return 文件内容输入流，调用方负责关闭
+     */
+    InputStream getFileStream(String objectName, long offset, Long length);
+
+
+    /**
+     * 生成文件存储路径
+     *
+     * @param extension 文件扩展名
+     * @return 对象名称
+     */
+    String generateObjectName(String extension);
+
 
     /**
      * 获取MinIO服务端点URL
@@ -0,0 +1,244 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.leocoder.devnote.hub.config.MarkdownConfig;
+import org.leocoder.devnote.hub.utils.LimitedInputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 外部图片下载服务
+ * <p>
+ * 所有图片下载共用一个HttpClient：同一域名的连接保持复用，服务端支持时使用HTTP/2多路复用，
+ * 导入引用同一图床的笔记时不会为每张图片重新建立TLS连接。响应体以流的形式交给调用方，不在内存中缓冲。
+ * 总耗时上限同时约束等待响应头和读取响应体：到期时取消请求或关闭响应体，停滞的连接不会一直占用并发许可。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageFetchService {
+
+    private static final String USER_AGENT = "Mozilla/5.0";
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final MarkdownConfig markdownConfig;
+
+    @Qualifier("imageFetchTimeoutScheduler")
+    private final TaskScheduler imageFetchTimeoutScheduler;
+
+    private HttpClient httpClient;
+
+    /**
+     * 响应体处理器
+     */
+    @FunctionalInterface
+    public interface BodyConsumer<T> {
+
+        /**
+         * 处理响应体
+         *
+         * @param body          响应体，已限制最大长度和总耗时
+         * @param contentType   响应的内容类型，可能为null
+         * @param contentLength 响应长度，未知时为-1
+         * @return 处理结果
+         */
+        T accept(InputStream body, String contentType, long contentLength) throws IOException;
+    }
+
+    /**
+     * 根据配置创建共享的HttpClient
+     */
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(markdownConfig.getImageConnectTimeout()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * 下载图片并将响应体交给处理器
+     * 传入上次响应的ETag/Last-Modified时发起条件请求，未修改时不会调用处理器
+     *
+     * @param imageUrl     图片URL
+     * @param etag         上次响应的ETag，可为null
+     * @param lastModified 上次响应的Last-Modified，可为null
+     * @param consumer     响应体处理器
+     * @return 下载结果
+     */
+    public <T> FetchResult<T> fetch(String imageUrl, String etag, String lastModified, BodyConsumer<T> consumer)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofMillis(markdownConfig.getImageTotalTimeout()).toNanos();
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(imageUrl))
+                .timeout(Duration.ofMillis(markdownConfig.getImageReadTimeout()))
+                .header("User-Agent", USER_AGENT)
+                .GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+
+        HttpResponse<InputStream> response = send(builder.build(), deadline);
+        // 读取响应体时阻塞的read无法被超时打断，到期后由调度器关闭响应体
+        ScheduledFuture<?> watchdog = imageFetchTimeoutScheduler.schedule(() -> closeQuietly(response.body()),
+                Instant.now().plusNanos(Math.max(0, deadline - System.nanoTime())));
+        try (InputStream body = response.body()) {
+            int status = response.statusCode();
+            if (status == HTTP_NOT_MODIFIED) {
+                return new FetchResult<>(true, null, etag, lastModified);
+            }
+            if (status != HTTP_OK) {
+                throw new IOException("下载图片失败, HTTP状态码: " + status);
+            }
+
+            long maxSize = markdownConfig.getImageMaxSize();
+            long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (contentLength > maxSize) {
+                throw new IOException("图片大小超出限制: " + contentLength + " 字节");
+            }
+
+            T value = consumer.accept(
+                    new DeadlineInputStream(new LimitedInputStream(body, maxSize), deadline),
+                    response.headers().firstValue("Content-Type").orElse(null),
+                    contentLength);
+            return new FetchResult<>(false, value,
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    /**
+     * 发送请求并在总耗时上限内等待响应头
+     * 超时后取消请求，之后才到达的响应也会关闭响应体，避免连接被占用
+     */
+    private HttpResponse<InputStream> send(HttpRequest request, long deadline)
+            throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<InputStream>> future =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            return future.orTimeout(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                abandon(future);
+                throw new HttpTimeoutException("图片下载超时");
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("下载图片失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            abandon(future);
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃未完成的请求
+     */
+    private static void abandon(CompletableFuture<HttpResponse<InputStream>> future) {
+        future.thenAccept(response -> closeQuietly(response.body()));
+        future.cancel(true);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("关闭图片响应体失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 下载结果
+     */
+    @Getter
+    public static class FetchResult<T> {
+
+        /**
+         * 条件请求命中，内容未修改
+         */
+        private final boolean notModified;
+
+        /**
+         * 响应体处理结果，未修改时为null
+         */
+        private final T value;
+
+        /**
+         * 响应的ETag
+         */
+        private final String etag;
+
+        /**
+         * 响应的Last-Modified
+         */
+        private final String lastModified;
+
+        FetchResult(boolean notModified, T value, String etag, String lastModified) {
+            this.notModified = notModified;
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * 超过总耗时上限后中断读取的输入流，响应体被超时关闭导致的读取失败同样报告为超时
+     */
+    private static class DeadlineInputStream extends ProxyInputStream {
+
+        private final long deadline;
+
+        DeadlineInputStream(InputStream in, long deadline) {
+            super(in);
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void afterRead(int n) throws IOException {
+            if (System.nanoTime() - deadline > 0) {
+                throw new HttpTimeoutException("图片下载超时");
+            }
+        }
+
+        @Override
+        protected void handleIOException(IOException e) throws IOException {
+            if (System.nanoTime() - deadline > 0) {
+                throw new HttpTimeoutException("图片下载超时");
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.config.ImageConfig;
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.leocoder.devnote.hub.enums.FileTypeEnum;
+import org.leocoder.devnote.hub.exception.BusinessException;
+import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.leocoder.devnote.hub.service.impl.ImageProcessService.ProcessedImage;
+import org.leocoder.devnote.hub.utils.LimitedInputStream;
+import org.leocoder.devnote.hub.utils.SingleFlight;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 图片预览服务
+ * <p>
+ * 按宽高和质量参数生成缩放后的预览图，两级缓存：本地按字节数限制容量的LRU缓存，
+ * 以及对象存储中的预览图目录（多节点共享，重启后仍然有效）。
+ * 不支持缩放或处理超时的图片在预览图位置写入空的标记对象，命中标记时直接返回原图，不再重复尝试处理。
+ * 同一预览图同时被多次请求且均未命中缓存时，只生成一次，其余请求等待共享结果。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImagePreviewService {
+
+    private final MinioClient minioClient;
+    private final MinioConfig minioConfig;
+    private final ImageConfig imageConfig;
+    private final ImageProcessService imageProcessService;
+
+    // 标记对象的用户元数据：预览图直接使用原图
+    private static final String SOURCE_METADATA = "preview-source";
+    private static final String SOURCE_ORIGINAL = "original";
+
+    // 合并相同预览图的并发生成
+    private final SingleFlight<String, Preview> renderFlight = new SingleFlight<>();
+
+    // 本地预览图缓存：预览图对象名 -> 预览图
+    private Cache<String, Preview> localCache;
+
+    // 升序排列的宽高档位和质量档位
+    private List<Integer> sizeLevels;
+    private List<Integer> qualityLevels;
+
+    /**
+     * 根据配置初始化本地缓存和参数档位
+     */
+    @PostConstruct
+    public void init() {
+        sizeLevels = sortedLevels(imageConfig.getPreviewSizes(), 1, Integer.MAX_VALUE);
+        qualityLevels = sortedLevels(imageConfig.getPreviewQualities(), 1, 100);
+        if (sizeLevels.isEmpty() || qualityLevels.isEmpty()) {
+            throw new IllegalStateException("预览图宽高档位和质量档位不能为空");
+        }
+        localCache = CacheBuilder.newBuilder()
+                .maximumWeight(imageConfig.getPreviewCacheSize())
+                .weigher((String key, Preview preview) -> preview.getData().length)
+                .build();
+    }
+
+    /**
+     * 当前正在生成的预览图数量
+     */
+    public int getRenderingCount() {
+        return renderFlight.inFlight();
+    }
+
+    /**
+     * 获取图片预览
+     *
+     * @param objectName 原图对象名
+     * @param width      最大宽度（像素），为空时不限制
+     * @param height     最大高度（像素），为空时不限制
+     * @param quality    压缩质量（1-100），为空时使用默认配置
+     * @return 预览图
+     */
+    public Preview getPreview(String objectName, Integer width, Integer height, Integer quality) {
+        String extension = checkObjectName(objectName);
+
+        // 参数向上取到配置的档位，每张图片的预览图数量有上限，不能通过任意参数组合无限生成
+        // 宽高都未指定时按上传的尺寸限制输出
+        int maxSize = sizeLevels.get(sizeLevels.size() - 1);
+        int maxWidth;
+        int maxHeight;
+        if (width == null && height == null) {
+            maxWidth = snap(sizeLevels, imageConfig.getMaxWidth());
+            maxHeight = snap(sizeLevels, imageConfig.getMaxHeight());
+        } else {
+            maxWidth = width == null ? maxSize : snap(sizeLevels, width);
+            maxHeight = height == null ? maxSize : snap(sizeLevels, height);
+        }
+        int q = snap(qualityLevels,
+                quality == null ? imageConfig.getCompressQuality() : quality);
+
+        String previewName = String.format("%s/%s/%dx%dq%d.%s",
+                imageConfig.getPreviewPrefix(), objectName, maxWidth, maxHeight, q, extension);
+        Preview preview = localCache.getIfPresent(previewName);
+        if (preview != null) {
+            return preview;
+        }
+
+        try {
+            return renderFlight.execute(previewName, () -> {
+                Preview cached = localCache.getIfPresent(previewName);
+                if (cached != null) {
+                    return cached;
+                }
+                Preview loaded = loadStored(objectName, previewName);
+                if (loaded == null) {
+                    loaded = render(objectName, previewName, maxWidth, maxHeight, q);
+                }
+                localCache.put(previewName, loaded);
+                return loaded;
+            });
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("生成图片预览失败: {}, 错误: {}", previewName, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成图片预览失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 删除原图的所有预览图，原图删除后预览图不应继续可访问
+     *
+     * @param objectNames 原图对象名列表
+     */
+    public void evict(List<String> objectNames) {
+        List<DeleteObject> objects = new ArrayList<>();
+        for (String objectName : objectNames) {
+            if (!FileTypeEnum.isImageExtension(getFileExtension(objectName))) {
+                continue;
+            }
+            String prefix = imageConfig.getPreviewPrefix() + "/" + objectName + "/";
+            localCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+            try {
+                for (Result<Item> item : minioClient.listObjects(ListObjectsArgs.builder()
+                        .bucket(minioConfig.getBucketName())
+                        .prefix(prefix)
+                        .recursive(true)
+                        .build())) {
+                    objects.add(new DeleteObject(item.get().objectName()));
+                }
+            } catch (Exception e) {
+                log.warn("查询预览图失败: {}, 错误: {}", objectName, e.getMessage());
+            }
+        }
+        if (objects.isEmpty()) {
+            return;
+        }
+        try {
+            for (Result<DeleteError> error : minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .objects(objects)
+                    .build())) {
+                log.warn("预览图删除失败: {}", error.get().objectName());
+            }
+        } catch (Exception e) {
+            log.warn("预览图删除失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从对象存储读取已生成的预览图，命中原图标记时读取原图
+     *
+     * @return 预览图，不存在时返回null
+     */
+    private Preview loadStored(String objectName, String previewName) throws Exception {
+        try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .object(previewName)
+                .build())) {
+            if (SOURCE_ORIGINAL.equals(response.headers().get("x-amz-meta-" + SOURCE_METADATA))) {
+                return loadOriginal(objectName);
+            }
+            byte[] data = response.readAllBytes();
+            return new Preview(data, response.headers().get("Content-Type"), DigestUtil.md5Hex(data));
+        } catch (ErrorResponseException e) {
+            if (isNotFound(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 读取原图生成预览图，并写入对象存储供其他节点复用
+     * 不支持缩放的格式（GIF动图、WebP等）或处理超时时返回原图，并在预览图位置写入原图标记，
+     * 其他节点和本地缓存淘汰后不再重复下载原图尝试处理；标记随原图的预览图一起删除
+     */
+    private Preview render(String objectName, String previewName, int maxWidth, int maxHeight, int quality)
+            throws Exception {
+        Preview original = loadOriginal(objectName);
+        ProcessedImage processed = imageProcessService.render(
+                new ByteArrayResource(original.getData()), maxWidth, maxHeight, quality);
+        if (processed == null) {
+            store(previewName, new byte[0], original.getContentType(),
+                    Collections.singletonMap(SOURCE_METADATA, SOURCE_ORIGINAL));
+            return original;
+        }
+
+        byte[] data = processed.getData();
+        store(previewName, data, processed.getContentType(), Collections.emptyMap());
+        return new Preview(data, processed.getContentType(), DigestUtil.md5Hex(data));
+    }
+
+    /**
+     * 读取原图
+     */
+    private Preview loadOriginal(String objectName) throws Exception {
+        try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .object(objectName)
+                .build());
+             InputStream in = new LimitedInputStream(response, minioConfig.getMaxSize())) {
+            byte[] data = in.readAllBytes();
+            return new Preview(data, response.headers().get("Content-Type"), DigestUtil.md5Hex(data));
+        } catch (ErrorResponseException e) {
+            if (isNotFound(e)) {
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "图片不存在: " + objectName);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 写入预览图目录，失败时只记录日志，下次请求重新生成
+     */
+    private void store(String previewName, byte[] data, String contentType, Map<String, String> metadata) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(previewName)
+                    .contentType(contentType != null ? contentType : "application/octet-stream")
+                    .userMetadata(metadata)
+                    .stream(new ByteArrayInputStream(data), data.length, -1)
+                    .build());
+        } catch (Exception e) {
+            log.warn("预览图保存失败: {}, 错误: {}", previewName, e.getMessage());
+        }
+    }
+
+    /**
+     * 校验原图对象名，返回扩展名
+     */
+    private String checkObjectName(String objectName) {
+        if (objectName == null || objectName.isEmpty() || objectName.startsWith("/")
+                || objectName.contains("..") || objectName.startsWith(imageConfig.getPreviewPrefix() + "/")) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "无效的对象名称: " + objectName);
+        }
+        String extension = getFileExtension(objectName);
+        if (!FileTypeEnum.isImageExtension(extension)) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持预览的文件类型: " + extension);
+        }
+        return extension;
+    }
+
+    private boolean isNotFound(ErrorResponseException e) {
+        String code = e.errorResponse().code();
+        return "NoSuchKey".equals(code) || "NoSuchObject".equals(code);
+    }
+
+    private String getFileExtension(String filename) {
+        int dot = filename.lastIndexOf('.');
+        if (dot < filename.lastIndexOf('/') + 1) {
+            return "";
+        }
+        return filename.substring(dot + 1).toLowerCase();
+    }
+
+    /**
+     * 过滤无效值并升序排列档位
+     */
+    private static List<Integer> sortedLevels(List<Integer> levels, int min, int max) {
+        return levels.stream()
+                .filter(level -> level != null && level >= min && level <= max)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 取不小于请求值的最小档位，超出所有档位时取最大档位
+     *
+     * @param levels 升序排列的档位
+     * @param value  请求值
+     */
+    static int snap(List<Integer> levels, int value) {
+        for (int level : levels) {
+            if (level >= value) {
+                return level;
+            }
+        }
+        return levels.get(levels.size() - 1);
+    }
+
+    /**
+     * 预览图
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Preview {
+
+        /**
+         * 图片内容
+         */
+        private final byte[] data;
+
+        /**
+         * 内容类型
+         */
+        private final String contentType;
+
+        /**
+         * 内容摘要，用作ETag
+         */
+        private final String etag;
+    }
+}
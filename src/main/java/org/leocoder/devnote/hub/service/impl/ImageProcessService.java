@@ -0,0 +1,601 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.config.ImageConfig;
+import org.leocoder.devnote.hub.enums.FileTypeEnum;
+import org.leocoder.devnote.hub.exception.BusinessException;
+import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 图片处理服务
+ * <p>
+ * 上传时将超出尺寸限制的JPEG/PNG等比缩放并按配置质量重新编码，同时生成缩略图。
+ * 处理在有界线程池中执行，并按解码后的像素内存申请预算：只读取图片头估算内存，
+ * 大图按缩放比例降采样解码，预算不足时排队等待，多张大图同时上传也不会耗尽堆内存。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageProcessService {
+
+    // 内存预算以KB为单位换算为信号量许可
+    private static final int PERMIT_UNIT = 1024;
+
+    // 每个像素按4字节（ARGB）估算
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // 缩略图对象名后缀
+    private static final String THUMBNAIL_SUFFIX = "_thumb";
+
+    // EXIF方向标签
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private final ImageConfig imageConfig;
+
+    @Qualifier("imageProcessExecutor")
+    private final AsyncTaskExecutor imageProcessExecutor;
+
+    // 解码内存预算
+    private Semaphore memoryPermits;
+
+    // 内存预算对应的许可总数
+    private int totalPermits;
+
+    /**
+     * 根据配置初始化内存预算
+     */
+    @PostConstruct
+    public void init() {
+        totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, imageConfig.getMemoryBudget() / PERMIT_UNIT));
+        memoryPermits = new Semaphore(totalPermits, true);
+        // 图片都在内存中处理，关闭ImageIO的磁盘缓存，避免产生临时文件
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * 当前可用的解码内存预算（字节）
+     */
+    public long getAvailableMemory() {
+        return (long) memoryPermits.availablePermits() * PERMIT_UNIT;
+    }
+
+    /**
+     * 处理上传的图片
+     * 只处理JPEG和PNG，其他格式（GIF动图、WebP等）以及无法解码的图片返回null，由调用方按原图上传
+     *
+     * @param source 图片内容，需要可以多次读取
+     * @return 处理结果，无需处理时返回null
+     */
+    public ProcessedImage process(InputStreamSource source) {
+        if (!imageConfig.isProcessEnabled()) {
+            return null;
+        }
+        return process(source, imageConfig.getMaxWidth(), imageConfig.getMaxHeight(),
+                imageConfig.getCompressQuality(), imageConfig.getThumbnailSizes(), false);
+    }
+
+    /**
+     * 按指定尺寸和质量生成图片，用于预览等按需缩放的场景
+     * 只缩小不放大，未超出尺寸时也按指定质量重新编码
+     *
+     * @param source    图片内容，需要可以多次读取
+     * @param maxWidth  最大宽度（像素）
+     * @param maxHeight 最大高度（像素）
+     * @param quality   压缩质量（1-100），只对JPEG生效
+     * @return 处理结果，不支持处理的格式返回null
+     */
+    public ProcessedImage render(InputStreamSource source, int maxWidth, int maxHeight, int quality) {
+        return process(source, maxWidth, maxHeight, quality, Collections.emptyList(), true);
+    }
+
+    /**
+     * 缩放、重新编码并生成缩略图
+     *
+     * @param alwaysEncode 未超出尺寸时是否也重新编码
+     */
+    private ProcessedImage process(InputStreamSource source, int maxWidth, int maxHeight, int quality,
+                                   List<Integer> sizes, boolean alwaysEncode) {
+        // 只读取图片头获取格式和尺寸，不解码像素
+        ImageHeader header;
+        try {
+            header = readHeader(source);
+        } catch (IOException e) {
+            log.warn("读取图片信息失败: {}", e.getMessage());
+            return null;
+        }
+        if (header == null) {
+            return null;
+        }
+        if ((long) header.width * header.height > imageConfig.getMaxPixels()) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR,
+                    "图片像素过大: " + header.width + "x" + header.height);
+        }
+
+        // 按EXIF方向修正后的尺寸计算缩放比例
+        boolean transposed = header.orientation >= 5;
+        int width = transposed ? header.height : header.width;
+        int height = transposed ? header.width : header.height;
+        double scale = Math.min(1.0, Math.min((double) maxWidth / width, (double) maxHeight / height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        boolean resize = scale < 1.0;
+        boolean encode = resize || alwaysEncode;
+
+        // 只生成比处理后图片小的缩略图，从大到小依次缩放
+        int longEdge = Math.max(targetWidth, targetHeight);
+        List<Integer> thumbnailSizes = sizes.stream()
+                .filter(size -> size != null && size > 0 && size < longEdge)
+                .distinct()
+                .sorted((a, b) -> b - a)
+                .collect(Collectors.toList());
+        if (!encode && thumbnailSizes.isEmpty()) {
+            return new ProcessedImage(null, header.type.getExtension(), header.type.getMimeType(),
+                    width, height, new LinkedHashMap<>());
+        }
+
+        // 降采样解码：解码尺寸保持在目标尺寸的两倍以上，再平滑缩放，兼顾质量和内存
+        int subsampling = Math.max(1, (int) Math.floor(1.0 / (scale * 2)));
+        long decodedPixels = (long) ceilDiv(header.width, subsampling) * ceilDiv(header.height, subsampling);
+        // 需要修正方向时还会生成一份与解码结果同样大小的图片
+        long orientedPixels = header.orientation > 1 && header.orientation <= 8 ? decodedPixels : 0;
+        long requiredBytes = (decodedPixels + orientedPixels + 2L * targetWidth * targetHeight) * BYTES_PER_PIXEL;
+        int permits = (int) Math.min(totalPermits, Math.max(1, requiredBytes / PERMIT_UNIT));
+
+        acquireMemory(permits);
+        // 内存预算归属：任务开始执行时认领并在结束时释放，还在队列中就被取消的任务由取消方认领释放
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<ProcessedImage> future;
+        try {
+            future = imageProcessExecutor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return transform(source, header, subsampling, encode, quality,
+                            targetWidth, targetHeight, thumbnailSizes);
+                } finally {
+                    memoryPermits.release(permits);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            memoryPermits.release(permits);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "图片处理繁忙，请稍后重试");
+        }
+
+        try {
+            return future.get(imageConfig.getProcessTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 中断处理线程，处理在各步骤之间检查中断状态后尽快结束并释放内存预算
+            cancel(future, claimed, permits);
+            log.warn("图片处理超时, 已取消: {}x{}", header.width, header.height);
+            return null;
+        } catch (InterruptedException e) {
+            cancel(future, claimed, permits);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "图片处理被中断");
+        } catch (ExecutionException e) {
+            log.warn("图片处理失败: {}", e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取缩略图的对象名，与原图存放在同一目录
+     * 例如：2025/05/11/images/uuid.jpg -> 2025/05/11/images/uuid_thumb160.jpg
+     *
+     * @param objectName 原图对象名
+     * @param size       缩略图尺寸
+     * @return 缩略图对象名
+     */
+    public String getThumbnailObjectName(String objectName, int size) {
+        int dot = objectName.lastIndexOf('.');
+        if (dot < objectName.lastIndexOf('/') + 1) {
+            return objectName + THUMBNAIL_SUFFIX + size;
+        }
+        return objectName.substring(0, dot) + THUMBNAIL_SUFFIX + size + objectName.substring(dot);
+    }
+
+    /**
+     * 获取原图所有可能存在的缩略图对象名，用于删除原图时一并清理
+     *
+     * @param objectName 原图对象名
+     * @return 缩略图对象名列表
+     */
+    public List<String> getThumbnailObjectNames(String objectName) {
+        List<String> names = new ArrayList<>();
+        for (Integer size : imageConfig.getThumbnailSizes()) {
+            if (size != null && size > 0) {
+                names.add(getThumbnailObjectName(objectName, size));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 等待内存预算
+     */
+    private void acquireMemory(int permits) {
+        try {
+            if (!memoryPermits.tryAcquire(permits, imageConfig.getAdmissionTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "图片处理繁忙，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "图片处理被中断");
+        }
+    }
+
+    /**
+     * 取消处理任务
+     * 任务还在队列中时不会再执行，由这里认领并释放内存预算；已开始执行的任务被中断，结束时自行释放
+     */
+    private void cancel(Future<ProcessedImage> future, AtomicBoolean claimed, int permits) {
+        future.cancel(true);
+        if (claimed.compareAndSet(false, true)) {
+            memoryPermits.release(permits);
+        }
+    }
+
+    /**
+     * 解码、修正方向、缩放并编码，在图片处理线程池中执行
+     */
+    private ProcessedImage transform(InputStreamSource source, ImageHeader header, int subsampling, boolean encode,
+                                     int quality, int targetWidth, int targetHeight, List<Integer> thumbnailSizes)
+            throws IOException {
+        boolean alpha = header.type == FileTypeEnum.PNG;
+        BufferedImage image = decode(source, subsampling);
+        checkCancelled();
+        image = orient(image, header.orientation, alpha);
+        image = resize(image, targetWidth, targetHeight, alpha);
+        checkCancelled();
+
+        byte[] data = encode ? encode(image, header.type, quality) : null;
+        Map<Integer, byte[]> thumbnails = new LinkedHashMap<>();
+        for (Integer size : thumbnailSizes) {
+            checkCancelled();
+            double scale = (double) size / Math.max(image.getWidth(), image.getHeight());
+            image = resize(image, Math.max(1, (int) Math.round(image.getWidth() * scale)),
+                    Math.max(1, (int) Math.round(image.getHeight() * scale)), alpha);
+            thumbnails.put(size, encode(image, header.type, quality));
+        }
+        return new ProcessedImage(data, header.type.getExtension(), header.type.getMimeType(),
+                targetWidth, targetHeight, thumbnails);
+    }
+
+    /**
+     * 处理已超时被取消时提前结束，ImageIO的解码和编码本身不响应中断
+     */
+    private static void checkCancelled() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("图片处理已取消");
+        }
+    }
+
+    /**
+     * 读取图片格式、尺寸和JPEG的EXIF方向
+     *
+     * @return 图片头信息，不支持处理的格式返回null
+     */
+    private ImageHeader readHeader(InputStreamSource source) throws IOException {
+        FileTypeEnum type;
+        int width;
+        int height;
+        try (InputStream in = source.getInputStream();
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                String format = reader.getFormatName().toLowerCase();
+                if ("jpeg".equals(format) || "jpg".equals(format)) {
+                    type = FileTypeEnum.JPG;
+                } else if ("png".equals(format)) {
+                    type = FileTypeEnum.PNG;
+                } else {
+                    return null;
+                }
+                reader.setInput(iis, true, true);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        int orientation = 1;
+        if (type == FileTypeEnum.JPG) {
+            try (InputStream in = source.getInputStream()) {
+                orientation = readExifOrientation(in);
+            } catch (IOException e) {
+                log.debug("读取EXIF方向失败: {}", e.getMessage());
+            }
+        }
+        return new ImageHeader(type, width, height, orientation);
+    }
+
+    /**
+     * 按降采样比例解码图片
+     */
+    private BufferedImage decode(InputStreamSource source, int subsampling) throws IOException {
+        try (InputStream in = source.getInputStream();
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("无法识别的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按EXIF方向旋转或翻转图片，重新编码后不再保留EXIF信息
+     */
+    private BufferedImage orient(BufferedImage image, int orientation, boolean alpha) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2:
+                transform = new AffineTransform(-1, 0, 0, 1, w, 0);
+                break;
+            case 3:
+                transform = new AffineTransform(-1, 0, 0, -1, w, h);
+                break;
+            case 4:
+                transform = new AffineTransform(1, 0, 0, -1, 0, h);
+                break;
+            case 5:
+                transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6:
+                transform = new AffineTransform(0, 1, -1, 0, h, 0);
+                break;
+            case 7:
+                transform = new AffineTransform(0, -1, -1, 0, h, w);
+                break;
+            default:
+                transform = new AffineTransform(0, -1, 1, 0, 0, w);
+                break;
+        }
+        boolean transposed = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(transposed ? h : w, transposed ? w : h,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = oriented.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return oriented;
+    }
+
+    /**
+     * 逐级减半缩放到目标尺寸，避免一次大比例缩小产生锯齿
+     */
+    private BufferedImage resize(BufferedImage image, int width, int height, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (image.getWidth() == width && image.getHeight() == height && image.getType() == type) {
+            return image;
+        }
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * 编码图片，JPEG按指定的压缩质量编码，PNG无损编码
+     */
+    private byte[] encode(BufferedImage image, FileTypeEnum type, int quality) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (type != FileTypeEnum.JPG) {
+            ImageIO.write(image, type.getExtension(), out);
+            return out.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(Math.max(1, Math.min(100, quality)) / 100f);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 从JPEG的APP1段中读取EXIF方向，读到图像数据前停止
+     *
+     * @return 方向值1-8，没有EXIF信息时返回1
+     */
+    private int readExifOrientation(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readUnsignedShort() != 0xFFD8) {
+            return 1;
+        }
+        while (true) {
+            int marker = in.readUnsignedShort();
+            // 非标记、SOS（图像数据开始）或EOI时结束
+            if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                return 1;
+            }
+            int length = in.readUnsignedShort() - 2;
+            if (length < 0) {
+                return 1;
+            }
+            if (marker == 0xFFE1) {
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                if (length > 14 && "Exif".equals(new String(segment, 0, 4, StandardCharsets.US_ASCII))) {
+                    return readTiffOrientation(segment, 6);
+                }
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+    }
+
+    /**
+     * 在TIFF结构的第一个IFD中查找方向标签
+     */
+    private int readTiffOrientation(byte[] data, int tiffStart) {
+        boolean littleEndian = data[tiffStart] == 'I';
+        int ifd = tiffStart + (int) readUnsigned(data, tiffStart + 4, 4, littleEndian);
+        if (ifd < tiffStart || ifd + 2 > data.length) {
+            return 1;
+        }
+        int count = (int) readUnsigned(data, ifd, 2, littleEndian);
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > data.length) {
+                break;
+            }
+            if (readUnsigned(data, entry, 2, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = (int) readUnsigned(data, entry + 8, 2, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static long readUnsigned(byte[] data, int offset, int length, boolean littleEndian) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = data[offset + (littleEndian ? length - 1 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * 图片头信息
+     */
+    @AllArgsConstructor
+    private static class ImageHeader {
+
+        private final FileTypeEnum type;
+
+        private final int width;
+
+        private final int height;
+
+        private final int orientation;
+    }
+
+    /**
+     * 图片处理结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ProcessedImage {
+
+        /**
+         * 缩放并重新编码后的图片，无需重新编码时为null，表示保留原图
+         */
+        private final byte[] data;
+
+        /**
+         * 图片扩展名
+         */
+        private final String extension;
+
+        /**
+         * 图片内容类型
+         */
+        private final String contentType;
+
+        /**
+         * 处理后的宽度（像素）
+         */
+        private final int width;
+
+        /**
+         * 处理后的高度（像素）
+         */
+        private final int height;
+
+        /**
+         * 缩略图：尺寸 -> 编码后的内容
+         */
+        private final Map<Integer, byte[]> thumbnails;
+    }
+}
@@ -0,0 +1,180 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.config.MarkdownConfig;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.leocoder.devnote.hub.constant.RedisKeyConstant.MARKDOWN_IMAGE_KEY;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 外部图片来源缓存服务
+ * <p>
+ * 记录外部图片URL与已上传对象的对应关系及ETag/Last-Modified，本地缓存 + Redis两级存储。
+ * 重复导入同一篇笔记时，新鲜期内的图片直接复用已上传地址，不发起下载也不重新上传；
+ * 超过新鲜期后携带校验信息发起条件请求。Redis不可用时退化为只使用本地缓存。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageSourceCacheService {
+
+    // 缓存字段
+    private static final String FIELD_OBJECT_NAME = "objectName";
+    private static final String FIELD_URL = "url";
+    private static final String FIELD_ETAG = "etag";
+    private static final String FIELD_LAST_MODIFIED = "lastModified";
+    private static final String FIELD_CHECKED_AT = "checkedAt";
+
+    private final MarkdownConfig markdownConfig;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 本地缓存层
+    private Cache<String, StoredImage> localCache;
+
+    /**
+     * 根据配置初始化本地缓存
+     */
+    @PostConstruct
+    public void init() {
+        localCache = CacheBuilder.newBuilder()
+                .maximumSize(markdownConfig.getImageCacheLocalSize())
+                .expireAfterWrite(markdownConfig.getImageCacheTtl(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 查询外部图片对应的已上传对象，先查本地缓存，未命中再查Redis并回填
+     *
+     * @param sourceUrl 外部图片URL
+     * @return 已上传对象信息，不存在时返回null
+     */
+    public StoredImage get(String sourceUrl) {
+        StoredImage stored = localCache.getIfPresent(sourceUrl);
+        if (stored != null) {
+            return stored;
+        }
+        try {
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(buildKey(sourceUrl));
+            if (entries.isEmpty()) {
+                return null;
+            }
+            stored = new StoredImage(
+                    (String) entries.get(FIELD_OBJECT_NAME),
+                    (String) entries.get(FIELD_URL),
+                    (String) entries.get(FIELD_ETAG),
+                    (String) entries.get(FIELD_LAST_MODIFIED),
+                    Long.parseLong((String) entries.getOrDefault(FIELD_CHECKED_AT, "0")));
+            localCache.put(sourceUrl, stored);
+            return stored;
+        } catch (Exception e) {
+            log.warn("读取图片来源缓存失败: {}, 错误: {}", sourceUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 记录外部图片对应的已上传对象
+     *
+     * @param sourceUrl 外部图片URL
+     * @param stored    已上传对象信息
+     */
+    public void put(String sourceUrl, StoredImage stored) {
+        localCache.put(sourceUrl, stored);
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_OBJECT_NAME, stored.getObjectName());
+        fields.put(FIELD_URL, stored.getUrl());
+        fields.put(FIELD_CHECKED_AT, String.valueOf(stored.getCheckedAt()));
+        if (stored.getEtag() != null) {
+            fields.put(FIELD_ETAG, stored.getEtag());
+        }
+        if (stored.getLastModified() != null) {
+            fields.put(FIELD_LAST_MODIFIED, stored.getLastModified());
+        }
+        try {
+            String key = buildKey(sourceUrl);
+            stringRedisTemplate.delete(key);
+            stringRedisTemplate.opsForHash().putAll(key, fields);
+            stringRedisTemplate.expire(key, markdownConfig.getImageCacheTtl(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入图片来源缓存失败: {}, 错误: {}", sourceUrl, e.getMessage());
+        }
+    }
+
+    /**
+     * 移除外部图片的缓存记录，例如对应对象已被删除
+     *
+     * @param sourceUrl 外部图片URL
+     */
+    public void evict(String sourceUrl) {
+        localCache.invalidate(sourceUrl);
+        try {
+            stringRedisTemplate.delete(buildKey(sourceUrl));
+        } catch (Exception e) {
+            log.warn("删除图片来源缓存失败: {}, 错误: {}", sourceUrl, e.getMessage());
+        }
+    }
+
+    /**
+     * 判断缓存记录是否仍在新鲜期内，新鲜期内无需再访问来源站点
+     */
+    public boolean isFresh(StoredImage stored) {
+        long freshMillis = TimeUnit.SECONDS.toMillis(markdownConfig.getImageCacheFreshTtl());
+        return System.currentTimeMillis() - stored.getCheckedAt() < freshMillis;
+    }
+
+    /**
+     * URL长度不定，使用其SHA-256作为键
+     */
+    private String buildKey(String sourceUrl) {
+        return String.format(MARKDOWN_IMAGE_KEY, DigestUtil.sha256Hex(sourceUrl));
+    }
+
+    /**
+     * 已上传的外部图片
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class StoredImage {
+
+        /**
+         * 存储对象名
+         */
+        private final String objectName;
+
+        /**
+         * 上传后的访问URL
+         */
+        private final String url;
+
+        /**
+         * 来源响应的ETag
+         */
+        private final String etag;
+
+        /**
+         * 来源响应的Last-Modified
+         */
+        private final String lastModified;
+
+        /**
+         * 最近一次向来源确认的时间（毫秒时间戳）
+         */
+        private final long checkedAt;
+    }
+}
@@ -0,0 +1,208 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import cn.hutool.json.JSONUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.config.MarkdownConfig;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownImageVO;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownJobVO;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownProcessVO;
+import org.leocoder.devnote.hub.enums.MarkdownJobStatusEnum;
+import org.leocoder.devnote.hub.exception.BusinessException;
+import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.leocoder.devnote.hub.utils.MarkdownImageParser.ImageRef;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.leocoder.devnote.hub.constant.RedisKeyConstant.MARKDOWN_JOB_KEY;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Markdown异步处理任务服务
+ * <p>
+ * 请求线程只把上传内容转存到临时文件并登记任务，图片下载上传在有界线程池中执行；
+ * 任务状态和进度记录在Redis中，任意节点都可以查询。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarkdownJobService {
+
+    // 任务状态字段
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_FILE_NAME = "fileName";
+    private static final String FIELD_IMAGE_TOTAL = "imageTotal";
+    private static final String FIELD_IMAGE_PROCESSED = "imageProcessed";
+    private static final String FIELD_IMAGE_FAILED = "imageFailed";
+    private static final String FIELD_ERROR_MESSAGE = "errorMessage";
+    private static final String FIELD_RESULT = "result";
+    private static final String FIELD_CREATE_TIME = "createTime";
+
+    private final MarkdownService markdownService;
+    private final FileService fileService;
+    private final MarkdownConfig markdownConfig;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Qualifier("markdownJobExecutor")
+    private final Executor markdownJobExecutor;
+
+    /**
+     * 提交Markdown异步处理任务
+     *
+     * @param file Markdown文件
+     * @return 任务信息
+     */
+    public MarkdownJobVO submit(MultipartFile file) {
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        String fileName = file.getOriginalFilename();
+        long size = file.getSize();
+        // 任务在后台线程执行，上传文件的引用持有人在请求时确定
+        String owner = fileService.getOwnerIdentity();
+
+        // 请求结束后上传的临时文件会被清理，先转存一份交给任务使用
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("markdown-job-", ".md");
+            file.transferTo(tempFile.toFile());
+        } catch (IOException e) {
+            log.error("保存Markdown文件失败: {}", e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存Markdown文件失败: " + e.getMessage());
+        }
+
+        long createTime = System.currentTimeMillis();
+        String key = String.format(MARKDOWN_JOB_KEY, jobId);
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_STATUS, MarkdownJobStatusEnum.PENDING.getValue());
+        fields.put(FIELD_FILE_NAME, fileName);
+        fields.put(FIELD_IMAGE_TOTAL, "0");
+        fields.put(FIELD_IMAGE_PROCESSED, "0");
+        fields.put(FIELD_IMAGE_FAILED, "0");
+        fields.put(FIELD_CREATE_TIME, String.valueOf(createTime));
+        stringRedisTemplate.opsForHash().putAll(key, fields);
+        stringRedisTemplate.expire(key, markdownConfig.getJobExpireMinutes(), TimeUnit.MINUTES);
+
+        try {
+            markdownJobExecutor.execute(() -> runJob(jobId, tempFile, fileName, size, owner));
+        } catch (TaskRejectedException e) {
+            deleteQuietly(tempFile);
+            stringRedisTemplate.delete(key);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "Markdown处理任务繁忙，请稍后重试");
+        }
+
+        return MarkdownJobVO.builder()
+                .jobId(jobId)
+                .status(MarkdownJobStatusEnum.PENDING.getValue())
+                .fileName(fileName)
+                .imageTotal(0)
+                .imageProcessed(0)
+                .imageFailed(0)
+                .createTime(createTime)
+                .build();
+    }
+
+    /**
+     * 查询任务状态
+     *
+     * @param jobId 任务ID
+     * @return 任务信息
+     */
+    public MarkdownJobVO getJob(String jobId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(String.format(MARKDOWN_JOB_KEY, jobId));
+        if (entries.isEmpty()) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "任务不存在或已过期");
+        }
+
+        String result = (String) entries.get(FIELD_RESULT);
+        return MarkdownJobVO.builder()
+                .jobId(jobId)
+                .status((String) entries.get(FIELD_STATUS))
+                .fileName((String) entries.get(FIELD_FILE_NAME))
+                .imageTotal(parseInt(entries.get(FIELD_IMAGE_TOTAL)))
+                .imageProcessed(parseInt(entries.get(FIELD_IMAGE_PROCESSED)))
+                .imageFailed(parseInt(entries.get(FIELD_IMAGE_FAILED)))
+                .errorMessage((String) entries.get(FIELD_ERROR_MESSAGE))
+                .result(result != null ? JSONUtil.toBean(result, MarkdownProcessVO.class) : null)
+                .createTime(Long.parseLong((String) entries.get(FIELD_CREATE_TIME)))
+                .build();
+    }
+
+    /**
+     * 执行任务
+     */
+    private void runJob(String jobId, Path tempFile, String fileName, long size, String owner) {
+        String key = String.format(MARKDOWN_JOB_KEY, jobId);
+        try {
+            stringRedisTemplate.opsForHash().put(key, FIELD_STATUS, MarkdownJobStatusEnum.PROCESSING.getValue());
+
+            MarkdownService.ProgressListener listener = new MarkdownService.ProgressListener() {
+                @Override
+                public void onImagesFound(int count) {
+                    increment(key, FIELD_IMAGE_TOTAL, count);
+                }
+
+                @Override
+                public void onImageProcessed(ImageRef ref, MarkdownImageVO image) {
+                    increment(key, FIELD_IMAGE_PROCESSED, 1);
+                    if (!Boolean.TRUE.equals(image.getSuccess())) {
+                        increment(key, FIELD_IMAGE_FAILED, 1);
+                    }
+                }
+            };
+
+            MarkdownProcessVO result = markdownService.processAndUploadMarkdownWithReport(
+                    new FileSystemResource(tempFile), fileName, size, false, owner, listener);
+
+            Map<String, String> fields = new HashMap<>();
+            fields.put(FIELD_STATUS, MarkdownJobStatusEnum.SUCCESS.getValue());
+            fields.put(FIELD_RESULT, JSONUtil.toJsonStr(result));
+            stringRedisTemplate.opsForHash().putAll(key, fields);
+        } catch (Exception e) {
+            log.error("Markdown处理任务失败: {}, 错误: {}", jobId, e.getMessage(), e);
+            Map<String, String> fields = new HashMap<>();
+            fields.put(FIELD_STATUS, MarkdownJobStatusEnum.FAILED.getValue());
+            fields.put(FIELD_ERROR_MESSAGE, String.valueOf(e.getMessage()));
+            stringRedisTemplate.opsForHash().putAll(key, fields);
+        } finally {
+            deleteQuietly(tempFile);
+            stringRedisTemplate.expire(key, markdownConfig.getJobExpireMinutes(), TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * 更新进度计数，Redis异常不影响图片处理本身
+     */
+    private void increment(String key, String field, long delta) {
+        try {
+            stringRedisTemplate.opsForHash().increment(key, field, delta);
+        } catch (Exception e) {
+            log.warn("更新Markdown任务进度失败: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    private Integer parseInt(Object value) {
+        return value == null ? 0 : Integer.parseInt((String) value);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", path, e);
+        }
+    }
+}
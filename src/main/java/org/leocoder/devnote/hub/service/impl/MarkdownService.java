@@ -1,24 +1,52 @@
 package org.leocoder.devnote.hub.service.impl;
 
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.config.MarkdownConfig;
 import org.leocoder.devnote.hub.domain.vo.file.FileUploadVO;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownImageVO;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownProcessVO;
+import org.leocoder.devnote.hub.enums.MarkdownImageTypeEnum;
 import org.leocoder.devnote.hub.exception.BusinessException;
 import org.leocoder.devnote.hub.exception.ErrorCode;
-import org.springframework.http.HttpStatus;
+import org.leocoder.devnote.hub.service.impl.ImageFetchService.FetchResult;
+import org.leocoder.devnote.hub.service.impl.ImageSourceCacheService.StoredImage;
+import org.leocoder.devnote.hub.utils.Base64Streams;
+import org.leocoder.devnote.hub.utils.ConcurrencyLimiter;
+import org.leocoder.devnote.hub.utils.EncodingDetector;
+import org.leocoder.devnote.hub.utils.MarkdownImageParser;
+import org.leocoder.devnote.hub.utils.MarkdownImageParser.ImageRef;
+import org.leocoder.devnote.hub.utils.MarkdownRewriteInputStream;
+import org.leocoder.devnote.hub.utils.MarkdownRewriteInputStream.PendingChunk;
+import org.leocoder.devnote.hub.utils.SingleFlight;
+import org.leocoder.devnote.hub.utils.TranscodingReader;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author : 程序员Leo
@@ -32,19 +60,65 @@ import java.util.regex.Pattern;
 public class MarkdownService {
 
     private final FileService fileService;
-    private final RestTemplate restTemplate;
+    private final ImageFetchService imageFetchService;
+    private final ImageSourceCacheService imageSourceCacheService;
+    private final MarkdownConfig markdownConfig;
+    private final FileMetricsService fileMetricsService;
 
-    // Base64编码图片的正则表达式模式
-    private static final Pattern BASE64_IMAGE_PATTERN =
-            Pattern.compile("!\\[(.*?)\\]\\(data:image/(.*?);base64,(.*?)\\)");
+    @Qualifier("markdownImageExecutor")
+    private final Executor markdownImageExecutor;
 
-    // 外部URL图片的正则表达式模式 - 包含HTTP/HTTPS链接
-    private static final Pattern URL_IMAGE_PATTERN =
-            Pattern.compile("!\\[(.*?)\\]\\((https?://.*?\\.(png|jpg|jpeg|gif|webp|bmp))\\)");
+    // 合并相同图片URL的并发下载上传
+    private final SingleFlight<String, FetchedImage> imageFetchFlight = new SingleFlight<>();
 
-    // 匹配形如 ![Image-20240202095614159](https://gaoziman.oss-cn-hangzhou.aliyuncs.com/LeoPic20240202095654.png) 的模式
-    private static final Pattern SPECIAL_IMAGE_PATTERN =
-            Pattern.compile("!\\[(Image-\\d+)\\]\\((https?://.*?\\.(png|jpg|jpeg|gif|webp|bmp))\\)");
+    // 图片处理并发限制器，全局限制 + 按域名限制
+    private ConcurrencyLimiter imageLimiter;
+
+    /**
+     * 根据配置初始化并发限制器
+     */
+    @PostConstruct
+    public void init() {
+        imageLimiter = new ConcurrencyLimiter(
+                markdownConfig.getImageConcurrency(),
+                markdownConfig.getImageHostConcurrency());
+    }
+
+    /**
+     * 图片处理进度监听器，回调可能来自图片处理线程
+     */
+    public interface ProgressListener {
+
+        /**
+         * 不关心进度时使用
+         */
+        ProgressListener NONE = new ProgressListener() {
+        };
+
+        /**
+         * 发现一批图片引用
+         *
+         * @param count 本批图片数量
+         */
+        default void onImagesFound(int count) {
+        }
+
+        /**
+         * 单个图片处理完成
+         *
+         * @param ref   图片引用
+         * @param image 处理结果，失败时url为null
+         */
+        default void onImageProcessed(ImageRef ref, MarkdownImageVO image) {
+        }
+    }
+
+    /**
+     * 当前可用的全局图片处理许可数
+     */
+    public int getAvailableImagePermits() {
+        return imageLimiter.availablePermits();
+    }
 
     /**
      * 处理Markdown文件并上传
@@ -53,219 +127,499 @@ public class MarkdownService {
      * @return 上传后的文件信息
      */
     public FileUploadVO processAndUploadMarkdown(MultipartFile file) {
+        return processAndUploadMarkdown(file, file.getOriginalFilename(), file.getSize(),
+                fileService.getOwnerIdentity(), ProgressListener.NONE);
+    }
+
+    /**
+     * 处理Markdown内容并上传
+     *
+     * @param source   Markdown内容来源，可多次打开
+     * @param fileName 文件名
+     * @param size     原始大小
+     * @param owner    上传文件的引用持有人标识
+     * @param listener 图片处理进度监听器
+     * @return 上传后的文件信息
+     */
+    public FileUploadVO processAndUploadMarkdown(InputStreamSource source, String fileName, long size, String owner,
+                                                 ProgressListener listener) {
+        if (markdownConfig.isStreamingUpload()) {
+            return processAndUploadMarkdownStreaming(source, fileName, size, owner, listener);
+        }
+        return processAndUploadMarkdownInMemory(source, fileName, owner, listener, null);
+    }
+
+    /**
+     * 处理Markdown内容并上传，返回包含每个图片耗时和结果的处理报告
+     *
+     * @param source         Markdown内容来源，可多次打开
+     * @param fileName       文件名
+     * @param size           原始大小
+     * @param includeContent 是否在报告中返回原始和处理后的内容，为true时整个文档在内存中处理
+     * @param owner          上传文件的引用持有人标识
+     * @param listener       图片处理进度监听器
+     * @return 处理报告
+     */
+    public MarkdownProcessVO processAndUploadMarkdownWithReport(InputStreamSource source, String fileName, long size,
+                                                              boolean includeContent, String owner,
+                                                              ProgressListener listener) {
+        long start = System.nanoTime();
+        List<MarkdownImageVO> images = Collections.synchronizedList(new ArrayList<>());
+        ProgressListener collector = new ProgressListener() {
+            @Override
+            public void onImagesFound(int count) {
+                listener.onImagesFound(count);
+            }
+
+            @Override
+            public void onImageProcessed(ImageRef ref, MarkdownImageVO image) {
+                images.add(image);
+                listener.onImageProcessed(ref, image);
+            }
+        };
+
+        MarkdownProcessVO report = new MarkdownProcessVO();
+        FileUploadVO fileInfo = includeContent
+                ? processAndUploadMarkdownInMemory(source, fileName, owner, collector, report)
+                : processAndUploadMarkdown(source, fileName, size, owner, collector);
+
+        List<String> imageUrls = new ArrayList<>();
+        synchronized (images) {
+            for (MarkdownImageVO image : images) {
+                if (Boolean.TRUE.equals(image.getSuccess())) {
+                    report.setSuccessCount(report.getSuccessCount() + 1);
+                    imageUrls.add(image.getUrl());
+                } else {
+                    report.setFailedCount(report.getFailedCount() + 1);
+                }
+                if (Boolean.TRUE.equals(image.getCacheHit())) {
+                    report.setCacheHitCount(report.getCacheHitCount() + 1);
+                }
+                report.setTotalBytes(report.getTotalBytes() + (image.getSize() != null ? image.getSize() : 0));
+                report.setDownloadMs(report.getDownloadMs() + image.getDownloadMs());
+                report.setUploadMs(report.getUploadMs() + image.getUploadMs());
+            }
+            report.setImages(new ArrayList<>(images));
+        }
+        report.setFileInfo(fileInfo);
+        report.setImageCount(report.getImages().size());
+        report.setImageUrls(imageUrls);
+        report.setTotalMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return report;
+    }
+
+    /**
+     * 在内存中处理整个Markdown文档并上传
+     *
+     * @param source   Markdown内容来源
+     * @param fileName 文件名
+     * @param owner    上传文件的引用持有人标识
+     * @param listener 图片处理进度监听器
+     * @param report   不为null时填入原始和处理后的内容
+     * @return 上传后的文件信息
+     */
+    private FileUploadVO processAndUploadMarkdownInMemory(InputStreamSource source, String fileName, String owner,
+                                                         ProgressListener listener, MarkdownProcessVO report) {
+        Timer.Sample sample = fileMetricsService.start();
+        String outcome = FileMetricsService.OUTCOME_FAILURE;
         try {
-            // 强制使用UTF-8读取文件内容，避免编码检测可能导致的问题
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
+            // 自动检测源文件编码读取内容，统一按UTF-8输出
+            String content;
+            try (InputStream sourceStream = source.getInputStream()) {
+                content = EncodingDetector.readInputStream(sourceStream);
+            }
             log.info("成功读取Markdown文件，大小: {}", content.length());
 
             // 处理Markdown中的图片
-            String processedContent = processMarkdownImages(content);
+            String processedContent = processMarkdownImages(content, owner, listener);
             log.info("处理完成，处理后内容大小: {}", processedContent.length());
 
+            if (report != null) {
+                report.setOriginalContent(content);
+                report.setProcessedContent(processedContent);
+            }
+
             // 将处理后的内容转为字节数组，使用UTF-8编码
             byte[] processedBytes = processedContent.getBytes(StandardCharsets.UTF_8);
 
             // 准备上传参数
-            String fileName = file.getOriginalFilename();
             ByteArrayInputStream inputStream = new ByteArrayInputStream(processedBytes);
 
             // 上传处理后的Markdown文件
-            return fileService.uploadFile(
+            FileUploadVO result = fileService.uploadFile(
                     inputStream,
                     fileName,
                     "text/markdown; charset=utf-8", // 明确指定MIME类型和字符集
-                    processedBytes.length
+                    processedBytes.length,
+                    owner
             );
+            outcome = FileMetricsService.OUTCOME_SUCCESS;
+            return result;
 
         } catch (IOException e) {
             log.error("处理Markdown文件失败: {}", e.getMessage(), e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "处理Markdown文件失败: " + e.getMessage());
+        } finally {
+            fileMetricsService.recordRewrite(sample, FileMetricsService.REWRITE_IN_MEMORY, outcome);
         }
     }
 
     /**
-     * 处理Markdown中的图片
+     * 流式处理Markdown文件并上传
+     * 先扫描一遍检测源文件编码，再从上传流按窗口解码、重写图片引用并转为UTF-8后直接写入MinIO，
+     * 非UTF-8文件与UTF-8文件的内存占用相同，不在内存中保留整个文档
      *
-     * @param content Markdown内容
-     * @return 处理后的Markdown内容
+     * @param source   Markdown内容来源，可多次打开
+     * @param fileName 文件名
+     * @param size     原始大小
+     * @param owner    上传文件的引用持有人标识
+     * @param listener 图片处理进度监听器
+     * @return 上传后的文件信息
      */
-    private String processMarkdownImages(String content) {
-        // 依次处理不同类型的图片
-        String result = processBase64Images(content);
-        result = processURLImages(result);
-        result = processSpecialImages(result);
+    private FileUploadVO processAndUploadMarkdownStreaming(InputStreamSource source, String fileName, long size,
+                                                           String owner, ProgressListener listener) {
+        Timer.Sample sample = fileMetricsService.start();
+        String outcome = FileMetricsService.OUTCOME_FAILURE;
+        Charset charset;
+        try (InputStream detectStream = source.getInputStream()) {
+            charset = EncodingDetector.detectEncoding(detectStream);
+        } catch (IOException e) {
+            fileMetricsService.recordRewrite(sample, FileMetricsService.REWRITE_STREAMING, outcome);
+            log.error("检测Markdown文件编码失败: {}", e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "处理Markdown文件失败: " + e.getMessage());
+        }
 
-        return result;
+        try (InputStream inputStream = new MarkdownRewriteInputStream(
+                new TranscodingReader(source.getInputStream(), charset),
+                content -> submitImages(content, 0, content.length(), owner, listener),
+                markdownConfig.getStreamingLookaheadWindows())) {
+
+            // 处理后的大小未知，由上传过程统计
+            FileUploadVO result = fileService.uploadFile(
+                    inputStream,
+                    fileName,
+                    "text/markdown; charset=utf-8",
+                    -1,
+                    owner
+            );
+            log.info("流式处理完成，源编码: {}, 原始大小: {}, 处理后大小: {}", charset, size, result.getSize());
+            outcome = FileMetricsService.OUTCOME_SUCCESS;
+            return result;
+
+        } catch (IOException e) {
+            log.error("处理Markdown文件失败: {}", e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "处理Markdown文件失败: " + e.getMessage());
+        } finally {
+            fileMetricsService.recordRewrite(sample, FileMetricsService.REWRITE_STREAMING, outcome);
+        }
     }
 
     /**
-     * 处理Base64编码的图片
+     * 处理Markdown中的图片
+     *
+     * @param content  Markdown内容
+     * @param owner    上传图片的引用持有人标识
+     * @param listener 图片处理进度监听器
+     * @return 处理后的Markdown内容
      */
-    private String processBase64Images(String content) {
-        Matcher matcher = BASE64_IMAGE_PATTERN.matcher(content);
-        StringBuffer sb = new StringBuffer();
-
-        while (matcher.find()) {
-            String altText = matcher.group(1);
-            String imageType = matcher.group(2);
-            String base64Data = matcher.group(3);
-
-            try {
-                // 解码Base64数据
-                byte[] imageData = Base64.getDecoder().decode(base64Data);
+    private String processMarkdownImages(String content, String owner, ProgressListener listener) {
+        StringBuilder out = new StringBuilder(content.length() + 256);
+        submitImages(content, 0, content.length(), owner, listener).writeTo(out);
+        return out.toString();
+    }
 
-                // 生成临时文件名
-                String fileName = UUID.randomUUID().toString() + "." + imageType;
+    /**
+     * 提交指定区间内的图片引用
+     * 单遍扫描收集所有图片引用并立即提交下载上传，返回的结果写出时等待完成并按文档顺序写回
+     *
+     * @param content  Markdown内容
+     * @param from     起始位置（包含）
+     * @param to       结束位置（不包含）
+     * @param owner    上传图片的引用持有人标识
+     * @param listener 图片处理进度监听器
+     * @return 待写出的重写结果
+     */
+    private PendingChunk submitImages(CharSequence content, int from, int to, String owner,
+                                      ProgressListener listener) {
+        List<ImageRef> refs = MarkdownImageParser.parse(content, from, to);
+        if (refs.isEmpty()) {
+            return out -> out.append(content, from, to);
+        }
+        log.debug("共发现图片引用: {} 处", refs.size());
+        listener.onImagesFound(refs.size());
+
+        // 提交所有图片任务，按域名排队，取得全局和单域名许可后才占用执行器线程
+        HeldObjects held = new HeldObjects();
+        Map<ImageRef, CompletableFuture<String>> futures = new HashMap<>(refs.size() * 2);
+        for (ImageRef ref : refs) {
+            futures.put(ref, submitImage(content, ref, owner, held, listener));
+        }
 
-                // 上传到MinIO
-                ByteArrayInputStream inputStream = new ByteArrayInputStream(imageData);
-                FileUploadVO uploadResult = fileService.uploadFile(
-                        inputStream,
-                        fileName,
-                        "image/" + imageType,
-                        imageData.length
-                );
+        return new PendingChunk() {
+            @Override
+            public void writeTo(StringBuilder out) {
+                // 按文档顺序写回，失败的图片保留原始引用
+                MarkdownImageParser.rewrite(content, from, to, refs, ref -> futures.get(ref).join(), out);
+            }
 
-                // 替换Markdown中的图片引用
-                matcher.appendReplacement(sb, "![" + altText + "](" + uploadResult.getUrl() + ")");
-                log.info("Base64图片已替换为: {}", uploadResult.getUrl());
+            @Override
+            public void discard() {
+                // 尚未开始的Base64图片不再上传；外部图片可能被其他文档合并等待，完成后再撤销本文档的引用
+                held.discarded = true;
+                CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                        .whenComplete((ignored, e) -> releaseHeldObjects(held, owner));
+            }
+        };
+    }
 
+    /**
+     * 撤销被丢弃的窗口为持有人登记的图片引用，删除只属于该窗口的上传
+     */
+    private void releaseHeldObjects(HeldObjects held, String owner) {
+        for (String objectName : held.shared) {
+            try {
+                fileService.releaseReference(objectName, owner);
+            } catch (Exception e) {
+                log.warn("撤销图片引用失败: {}, 错误: {}", objectName, e.getMessage());
+            }
+        }
+        for (String objectName : held.exclusive) {
+            try {
+                fileService.deleteFile(objectName, owner);
             } catch (Exception e) {
-                log.error("处理Base64图片失败: {}", e.getMessage(), e);
-                // 如果处理失败，保留原始内容
-                matcher.appendReplacement(sb, matcher.group(0));
+                log.warn("删除未使用的图片失败: {}, 错误: {}", objectName, e.getMessage());
             }
         }
+    }
 
-        matcher.appendTail(sb);
-        return sb.toString();
+    /**
+     * 提交单个图片引用的处理任务
+     * Base64图片只受全局并发限制；外部图片先按URL合并，只有首个引用进入所属域名的队列，
+     * 同一URL的其他引用直接等待其结果，不占用许可和执行器线程；
+     * 其他引用复用首个引用上传的对象，各自登记一次引用
+     *
+     * @param held 所在窗口已登记引用的对象，处理成功的图片加入其中
+     * @return 替换后的图片引用，处理失败时为null以保留原始内容
+     */
+    private CompletableFuture<String> submitImage(CharSequence content, ImageRef ref, String owner,
+                                                  HeldObjects held, ProgressListener listener) {
+        if (ref.getType() == MarkdownImageTypeEnum.BASE64) {
+            return imageLimiter.submit(null,
+                    () -> held.discarded ? null : processBase64Image(content, ref, owner, held, listener),
+                    markdownImageExecutor);
+        }
+
+        MarkdownImageVO image = newImageReport(ref);
+        String imageUrl = ref.getUrl();
+        // 保留特殊格式图片的原始文件名
+        String fileName = (ref.getType() == MarkdownImageTypeEnum.SPECIAL ? ref.getAltText() : UUID.randomUUID().toString())
+                + "." + ref.getExtension();
+        long[] start = {System.nanoTime()};
+        boolean[] leader = {false};
+        return imageFetchFlight.executeAsync(imageUrl, () -> {
+            leader[0] = true;
+            return imageLimiter.submit(getHost(imageUrl), () -> {
+                // 首个引用从开始执行计时，不包括排队时间
+                start[0] = System.nanoTime();
+                return fetchAndStore(imageUrl, fileName, ref.getExtension(), owner);
+            }, markdownImageExecutor);
+        }).handle((fetched, e) -> {
+            String url = null;
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.error("处理{}图片失败: {}, 错误: {}", ref.getType() == MarkdownImageTypeEnum.SPECIAL ? "特殊格式" : "URL",
+                        imageUrl, cause.getMessage(), cause);
+                image.setFailureReason(cause.getMessage());
+            } else if (!leader[0] && !fileService.acquireReference(fetched.getObjectName(), owner)) {
+                // 合并到其他文档的下载时为本文档登记引用，对象已被删除时保留原始引用
+                log.warn("复用的图片已被删除: {}", fetched.getObjectName());
+                image.setFailureReason("图片已被删除");
+            } else {
+                if (!leader[0] || fetched.isReused()) {
+                    // 复用了其他引用刚上传的地址，或来源缓存命中、未修改
+                    image.setCacheHit(true);
+                }
+                if (leader[0]) {
+                    image.setSize(fetched.getSize());
+                    image.setDownloadMs(fetched.getDownloadMs());
+                    image.setUploadMs(fetched.getUploadMs());
+                }
+                url = fetched.getUrl();
+                held.shared.add(fetched.getObjectName());
+                log.debug("外部图片已替换为: {}", url);
+            }
+            return completeImage(ref, image, url, start[0], listener);
+        });
     }
 
     /**
-     * 处理外部URL图片
+     * 记录单个图片的处理结果并通知监听器
+     *
+     * @return 替换后的图片引用，处理失败时返回null以保留原始内容
      */
-    private String processURLImages(String content) {
-        Matcher matcher = URL_IMAGE_PATTERN.matcher(content);
-        StringBuffer sb = new StringBuffer();
+    private String completeImage(ImageRef ref, MarkdownImageVO image, String url, long start,
+                                 ProgressListener listener) {
+        image.setUrl(url);
+        image.setSuccess(url != null);
+        fileMetricsService.recordImage(image, System.nanoTime() - start);
+        listener.onImageProcessed(ref, image);
+        return url == null ? null : "![" + ref.getAltText() + "](" + url + ")";
+    }
 
-        while (matcher.find()) {
-            String altText = matcher.group(1);
-            String imageUrl = matcher.group(2);
-            String extension = matcher.group(3).toLowerCase();
+    /**
+     * 创建单个图片的处理结果
+     */
+    private MarkdownImageVO newImageReport(ImageRef ref) {
+        boolean base64 = ref.getType() == MarkdownImageTypeEnum.BASE64;
+        return MarkdownImageVO.builder()
+                .type(ref.getType().getValue())
+                .source(base64 ? null : ref.getUrl())
+                .host(base64 ? null : getHost(ref.getUrl()))
+                .downloadMs(0L)
+                .uploadMs(0L)
+                .cacheHit(false)
+                .success(false)
+                .build();
+    }
 
-            try {
-                // 下载图片
-                log.info("开始下载图片: {}", imageUrl);
-                byte[] imageData = downloadImage(imageUrl);
-
-                if (imageData != null && imageData.length > 0) {
-                    // 生成文件名
-                    String fileName = UUID.randomUUID().toString() + "." + extension;
-
-                    // 上传到MinIO
-                    ByteArrayInputStream inputStream = new ByteArrayInputStream(imageData);
-                    FileUploadVO uploadResult = fileService.uploadFile(
-                            inputStream,
-                            fileName,
-                            "image/" + getContentTypeByExtension(extension),
-                            imageData.length
-                    );
+    /**
+     * 处理Base64编码的图片
+     *
+     * @return 替换后的图片引用，处理失败时返回null以保留原始内容
+     */
+    private String processBase64Image(CharSequence content, ImageRef ref, String owner, HeldObjects held,
+                                      ProgressListener listener) {
+        long begin = System.nanoTime();
+        MarkdownImageVO image = newImageReport(ref);
+        return completeImage(ref, image, uploadBase64Image(content, ref, owner, held, image), begin, listener);
+    }
 
-                    // 替换Markdown中的图片引用
-                    matcher.appendReplacement(sb, "![" + altText + "](" + uploadResult.getUrl() + ")");
-                    log.info("外部URL图片已替换为: {}", uploadResult.getUrl());
-                } else {
-                    // 如果下载失败，保留原始内容
-                    matcher.appendReplacement(sb, matcher.group(0));
-                    log.warn("无法下载图片: {}", imageUrl);
-                }
-            } catch (Exception e) {
-                log.error("处理URL图片失败: {}, 错误: {}", imageUrl, e.getMessage(), e);
-                // 如果处理失败，保留原始内容
-                matcher.appendReplacement(sb, matcher.group(0));
-            }
+    /**
+     * 解码并上传Base64编码的图片
+     *
+     * @return 上传后的图片URL，失败时返回null
+     */
+    private String uploadBase64Image(CharSequence content, ImageRef ref, String owner, HeldObjects held,
+                                     MarkdownImageVO image) {
+        String imageType = ref.getExtension();
+        try (InputStream inputStream = Base64Streams.newDecodingStream(
+                content, ref.getDataStart(), ref.getDataEnd())) {
+            // 预先计算解码后的大小，边解码边上传，不生成完整的解码结果
+            long start = System.nanoTime();
+            long size = Base64Streams.decodedLength(content, ref.getDataStart(), ref.getDataEnd());
+            image.setSize(size);
+
+            // 生成临时文件名
+            String fileName = UUID.randomUUID().toString() + "." + imageType;
+
+            // 上传到MinIO
+            FileUploadVO uploadResult = fileService.uploadFile(
+                    inputStream,
+                    fileName,
+                    "image/" + imageType,
+                    size,
+                    owner
+            );
+            image.setUploadMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            held.exclusive.add(uploadResult.getObjectName());
+            log.debug("Base64图片已替换为: {}", uploadResult.getUrl());
+            return uploadResult.getUrl();
+
+        } catch (Exception e) {
+            log.error("处理Base64图片失败: {}", e.getMessage(), e);
+            image.setFailureReason(e.getMessage());
+            return null;
         }
+    }
 
-        matcher.appendTail(sb);
-        return sb.toString();
+    /**
+     * 获取新鲜期内且对象仍存在的来源缓存，并为持有人登记一次对象引用；对象已被删除时清除缓存
+     *
+     * @return 缓存记录，不可直接复用时返回null
+     */
+    private StoredImage acquireFreshStoredImage(String imageUrl, String owner) {
+        StoredImage stored = imageSourceCacheService.get(imageUrl);
+        if (stored == null || !imageSourceCacheService.isFresh(stored)) {
+            return null;
+        }
+        if (!fileService.acquireReference(stored.getObjectName(), owner)) {
+            imageSourceCacheService.evict(imageUrl);
+            return null;
+        }
+        return stored;
     }
 
     /**
-     * 处理特殊形式的图片（例如截图中的格式）
+     * 下载外部图片并直接以流的形式上传，在同一URL的合并调用内执行
+     * 来源缓存新鲜期内且对象仍存在时直接复用已上传地址；否则携带ETag/Last-Modified发起条件请求，未修改也复用。
+     * 复用已上传的对象时为持有人登记一次引用，删除其他文档的图片不会影响本文档
      */
-    private String processSpecialImages(String content) {
-        Matcher matcher = SPECIAL_IMAGE_PATTERN.matcher(content);
-        StringBuffer sb = new StringBuffer();
+    private FetchedImage fetchAndStore(String imageUrl, String fileName, String extension, String owner)
+            throws Exception {
+        // 排队期间其他调用可能刚完成上传
+        StoredImage fresh = acquireFreshStoredImage(imageUrl, owner);
+        if (fresh != null) {
+            return new FetchedImage(fresh.getObjectName(), fresh.getUrl(), null, 0, 0, true);
+        }
 
-        while (matcher.find()) {
-            String altText = matcher.group(1);
-            String imageUrl = matcher.group(2);
-            String extension = matcher.group(3).toLowerCase();
+        StoredImage stored = imageSourceCacheService.get(imageUrl);
+        if (stored != null && !fileService.isFileExist(stored.getObjectName())) {
+            imageSourceCacheService.evict(imageUrl);
+            stored = null;
+        }
 
-            try {
-                // 下载图片
-                log.info("开始下载特殊格式图片: {}", imageUrl);
-                byte[] imageData = downloadImage(imageUrl);
-
-                if (imageData != null && imageData.length > 0) {
-                    // 生成文件名，保留原始文件名的特殊格式
-                    String fileName = altText + "." + extension;
-
-                    // 上传到MinIO
-                    ByteArrayInputStream inputStream = new ByteArrayInputStream(imageData);
-                    FileUploadVO uploadResult = fileService.uploadFile(
-                            inputStream,
+        // 响应体直接流入上传，收到响应头之前计为下载耗时，之后计为上传耗时
+        long start = System.nanoTime();
+        long[] headersReceived = {0};
+        FetchResult<FileUploadVO> result = imageFetchService.fetch(imageUrl,
+                stored != null ? stored.getEtag() : null,
+                stored != null ? stored.getLastModified() : null,
+                (body, contentType, contentLength) -> {
+                    headersReceived[0] = System.nanoTime();
+                    return fileService.uploadFile(
+                            body,
                             fileName,
                             "image/" + getContentTypeByExtension(extension),
-                            imageData.length
+                            contentLength,
+                            owner
                     );
-
-                    // 替换Markdown中的图片引用
-                    matcher.appendReplacement(sb, "![" + altText + "](" + uploadResult.getUrl() + ")");
-                    log.info("特殊格式图片已替换为: {}", uploadResult.getUrl());
-                } else {
-                    // 如果下载失败，保留原始内容
-                    matcher.appendReplacement(sb, matcher.group(0));
-                    log.warn("无法下载特殊格式图片: {}", imageUrl);
-                }
-            } catch (Exception e) {
-                log.error("处理特殊格式图片失败: {}, 错误: {}", imageUrl, e.getMessage(), e);
-                // 如果处理失败，保留原始内容
-                matcher.appendReplacement(sb, matcher.group(0));
+                });
+        long end = System.nanoTime();
+
+        if (result.isNotModified()) {
+            if (!fileService.acquireReference(stored.getObjectName(), owner)) {
+                // 条件请求期间对象被删除，清除缓存后重新下载
+                imageSourceCacheService.evict(imageUrl);
+                return fetchAndStore(imageUrl, fileName, extension, owner);
             }
+            log.debug("图片未修改，复用已上传地址: {}", imageUrl);
+            imageSourceCacheService.put(imageUrl, new StoredImage(stored.getObjectName(), stored.getUrl(),
+                    stored.getEtag(), stored.getLastModified(), System.currentTimeMillis()));
+            return new FetchedImage(stored.getObjectName(), stored.getUrl(), null,
+                    TimeUnit.NANOSECONDS.toMillis(end - start), 0, true);
         }
 
-        matcher.appendTail(sb);
-        return sb.toString();
+        FileUploadVO upload = result.getValue();
+        imageSourceCacheService.put(imageUrl, new StoredImage(upload.getObjectName(), upload.getUrl(),
+                result.getEtag(), result.getLastModified(), System.currentTimeMillis()));
+        return new FetchedImage(upload.getObjectName(), upload.getUrl(), upload.getSize(),
+                TimeUnit.NANOSECONDS.toMillis(headersReceived[0] - start),
+                TimeUnit.NANOSECONDS.toMillis(end - headersReceived[0]), false);
     }
 
     /**
-     * 下载图片
+     * 获取图片URL的域名，用于按域名限流
      *
-     * @param imageUrl 图片URL
-     * @return 图片字节数组
+     * @param imageUrl 图片URL，Base64图片为null
+     * @return 域名，无法解析时返回null
      */
-    private byte[] downloadImage(String imageUrl) {
+    private String getHost(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
         try {
-            URL url = new URL(imageUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpStatus.OK.value()) {
-                // 读取图片数据
-                try (ByteArrayInputStream bis = new ByteArrayInputStream(connection.getInputStream().readAllBytes())) {
-                    return bis.readAllBytes();
-                }
-            } else {
-                log.error("下载图片失败, HTTP状态码: {}", responseCode);
-                return null;
-            }
-        } catch (Exception e) {
-            log.error("下载图片出错: {}", e.getMessage(), e);
+            return URI.create(imageUrl).getHost();
+        } catch (IllegalArgumentException e) {
             return null;
         }
     }
@@ -290,4 +644,63 @@ public class MarkdownService {
                 return "jpeg"; // 默认类型
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 单个窗口中已为持有人登记引用的对象，窗口未写出就被丢弃时据此撤销
+     */
+    private static class HeldObjects {
+
+        /**
+         * 外部图片对象，可能通过来源缓存或合并下载被其他文档共享
+         */
+        private final Queue<String> shared = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 本窗口上传的Base64图片对象，不会被其他文档复用
+         */
+        private final Queue<String> exclusive = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 窗口是否已被丢弃
+         */
+        private volatile boolean discarded;
+    }
+
+    /**
+     * 外部图片的下载上传结果，由同一URL的并发引用共享
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class FetchedImage {
+
+        /**
+         * 存储对象名
+         */
+        private final String objectName;
+
+        /**
+         * 上传后的图片URL
+         */
+        private final String url;
+
+        /**
+         * 图片大小（字节），复用已上传地址时为null
+         */
+        private final Long size;
+
+        /**
+         * 下载耗时（毫秒）
+         */
+        private final long downloadMs;
+
+        /**
+         * 上传耗时（毫秒）
+         */
+        private final long uploadMs;
+
+        /**
+         * 是否复用了已上传的地址
+         */
+        private final boolean reused;
+    }
+}
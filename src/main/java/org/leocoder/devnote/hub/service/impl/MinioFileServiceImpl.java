@@ -1,22 +1,66 @@
 package org.leocoder.devnote.hub.service.impl;
 
+import cn.dev33.satoken.stp.StpUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.leocoder.devnote.hub.config.MinioConfig;
 import org.leocoder.devnote.hub.domain.vo.file.FileUploadVO;
+import org.leocoder.devnote.hub.domain.vo.file.PresignedUploadVO;
+import org.leocoder.devnote.hub.enums.FileCategoryEnum;
 import org.leocoder.devnote.hub.enums.FileTypeEnum;
 import org.leocoder.devnote.hub.exception.BusinessException;
 import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.leocoder.devnote.hub.service.impl.ImageProcessService.ProcessedImage;
+import org.leocoder.devnote.hub.utils.FileTypeSniffer;
+import org.leocoder.devnote.hub.utils.LimitedInputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.leocoder.devnote.hub.constant.RedisKeyConstant.CONTENT_REF_KEY;
+import static org.leocoder.devnote.hub.constant.RedisKeyConstant.PRESIGNED_UPLOAD_KEY;
 
 /**
  * @author : 程序员Leo
@@ -33,9 +77,75 @@ public class MinioFileServiceImpl implements FileService {
     private final MinioClient minioClient;
     private final MinioConfig minioConfig;
 
+    @Qualifier("minioAsyncClient")
+    private final MinioAsyncClient minioAsyncClient;
+
+    private final ImageProcessService imageProcessService;
+
+    private final ImagePreviewService imagePreviewService;
+
+    private final FileMetricsService fileMetricsService;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
     // 日期格式化器，用于生成文件存储路径
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
 
+    // 大小未知时的分片大小，MinIO要求分片不小于5MB
+    private static final long UNKNOWN_SIZE_PART_SIZE = 5L * 1024 * 1024;
+
+    // 预签名URL的最大有效期（秒），S3协议限制为7天
+    private static final int MAX_PRESIGNED_EXPIRY = 7 * 24 * 3600;
+
+    // 预签名上传凭证在URL过期后的保留时间（秒），留给客户端上传结束后回调
+    private static final int PRESIGNED_COMPLETE_GRACE = 600;
+
+    // 批量操作单次最多处理的对象数量
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // 内容寻址对象的根目录
+    private static final String CONTENT_DIR = "content";
+
+    // 内容哈希本地索引：SHA-256 -> 对象名，命中且对象仍存在时跳过重复上传
+    private Cache<String, String> contentIndex;
+
+    // 释放内容寻址对象引用的脚本
+    private DefaultRedisScript<Long> contentReleaseScript;
+
+    // 文件存在性缓存：已确认存在的对象
+    private Cache<String, Boolean> existCache;
+
+    // 文件存在性缓存：已确认不存在的对象
+    private Cache<String, Boolean> missCache;
+
+    // 对象元数据缓存，用于下载
+    private Cache<String, StatObjectResponse> statCache;
+
+    /**
+     * 根据配置初始化内容哈希索引和存在性缓存
+     */
+    @PostConstruct
+    public void init() {
+        contentIndex = CacheBuilder.newBuilder()
+                .maximumSize(minioConfig.getContentIndexSize())
+                .build();
+        existCache = CacheBuilder.newBuilder()
+                .maximumSize(minioConfig.getExistCacheSize())
+                .expireAfterWrite(minioConfig.getExistCacheHitTtl(), TimeUnit.SECONDS)
+                .build();
+        missCache = CacheBuilder.newBuilder()
+                .maximumSize(minioConfig.getExistCacheSize())
+                .expireAfterWrite(minioConfig.getExistCacheMissTtl(), TimeUnit.SECONDS)
+                .build();
+        statCache = CacheBuilder.newBuilder()
+                .maximumSize(minioConfig.getExistCacheSize())
+                .expireAfterWrite(minioConfig.getStatCacheTtl(), TimeUnit.SECONDS)
+                .build();
+        contentReleaseScript = new DefaultRedisScript<>();
+        contentReleaseScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/content_release.lua")));
+        contentReleaseScript.setResultType(Long.class);
+    }
+
 
     /**
      * 上传文件
@@ -59,7 +169,7 @@ public class MinioFileServiceImpl implements FileService {
         }
 
         // 验证文件扩展名是否在允许列表中
-        if (!minioConfig.getAllAllowedExtensions().contains(extension.toLowerCase())) {
+        if (!minioConfig.isAllowedExtension(extension)) {
             throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文件类型: " + extension);
         }
 
@@ -69,21 +179,28 @@ public class MinioFileServiceImpl implements FileService {
                     "文件大小超出限制，最大允许: " + (minioConfig.getMaxSize() / 1024 / 1024) + "MB");
         }
 
-        try {
-            // 生成存储对象名
-            String objectName = generateObjectName(extension);
-            // 设置文件元数据
-            Map<String, String> userMetadata = new HashMap<>();
-            userMetadata.put("originalFilename", originalFilename);
+        try (InputStream inputStream = new BufferedInputStream(file.getInputStream())) {
+            // 根据文件头识别真实类型，修正内容类型和存储目录
+            FileTypeEnum detected = FileTypeSniffer.sniff(inputStream);
+            String storageExtension = resolveExtension(detected, extension);
+            String contentType = detected != FileTypeEnum.UNKNOWN ? detected.getMimeType() : mimeType;
 
-            // 上传文件到MinIO
-            minioClient.putObject(PutObjectArgs.builder()
-                    .bucket(minioConfig.getBucketName())
-                    .object(objectName)
-                    .contentType(mimeType)
-                    .stream(file.getInputStream(), file.getSize(), -1)
-                    .userMetadata(userMetadata)
-                    .build());
+            String objectName;
+            if (minioConfig.isContentAddressed()) {
+                // 内容寻址：先计算内容哈希，相同内容已存在时跳过上传
+                String hash = DigestUtil.sha256Hex(inputStream);
+                objectName = generateContentObjectName(hash, storageExtension);
+                String contentObjectName = objectName;
+                putContentObject(hash, objectName, getOwnerIdentity(), () -> {
+                    try (InputStream uploadStream = file.getInputStream()) {
+                        putObject(contentObjectName, contentType, uploadStream, file.getSize(), originalFilename);
+                    }
+                });
+            } else {
+                // 生成存储对象名并上传文件到MinIO
+                objectName = generateObjectName(storageExtension);
+                putObject(objectName, contentType, inputStream, file.getSize(), originalFilename);
+            }
 
             // 获取文件访问URL
             String url = getFileUrl(objectName, -1);
@@ -92,11 +209,13 @@ public class MinioFileServiceImpl implements FileService {
             return FileUploadVO.builder()
                     .originalFilename(originalFilename)
                     .size(file.getSize())
-                    .contentType(mimeType)
+                    .contentType(contentType)
                     .objectName(objectName)
                     .url(url)
-                    .extension(extension)
+                    .extension(storageExtension)
                     .build();
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("文件上传失败: {}", e.getMessage(), e);
             throw new BusinessException(ErrorCode.UPLOAD_FAILURE, "文件上传失败: " + e.getMessage());
@@ -116,15 +235,58 @@ public class MinioFileServiceImpl implements FileService {
         String extension = getFileExtension(file.getOriginalFilename());
 
         // 验证是否为允许的图片类型
-        if (!minioConfig.getAllowedImageExtensionList().contains(extension.toLowerCase())) {
+        if (!minioConfig.isAllowedExtension(FileCategoryEnum.IMAGE, extension)) {
             throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的图片类型: " + extension);
         }
 
         // 获取图片的MIME类型
         String mimeType = FileTypeEnum.getMimeTypeByExtension(extension);
 
-        // 调用通用上传方法
-        return uploadFile(file, mimeType);
+        // 验证文件大小，超出限制的图片不再解码处理
+        if (file.getSize() > minioConfig.getMaxSize()) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR,
+                    "文件大小超出限制，最大允许: " + (minioConfig.getMaxSize() / 1024 / 1024) + "MB");
+        }
+
+        // 超出尺寸限制时缩放并重新编码，同时生成缩略图；不支持处理的格式按原图上传
+        ProcessedImage processed = imageProcessService.process(file);
+        if (processed == null) {
+            return uploadFile(file, mimeType);
+        }
+
+        FileUploadVO result;
+        if (processed.getData() != null) {
+            String fileName = replaceExtension(file.getOriginalFilename(), processed.getExtension());
+            result = uploadFile(new ByteArrayInputStream(processed.getData()), fileName,
+                    processed.getContentType(), processed.getData().length);
+            result.setOriginalFilename(file.getOriginalFilename());
+        } else {
+            result = uploadFile(file, mimeType);
+        }
+        result.setWidth(processed.getWidth());
+        result.setHeight(processed.getHeight());
+        result.setVariants(uploadThumbnails(result.getObjectName(), result.getContentType(), processed));
+        return result;
+    }
+
+    /**
+     * 上传缩略图，与原图存放在同一目录
+     * 缩略图上传失败不影响原图，只记录日志
+     *
+     * @return 缩略图尺寸 -> 访问URL
+     */
+    private Map<Integer, String> uploadThumbnails(String objectName, String contentType, ProcessedImage processed) {
+        Map<Integer, String> variants = new LinkedHashMap<>();
+        processed.getThumbnails().forEach((size, data) -> {
+            String thumbnailName = imageProcessService.getThumbnailObjectName(objectName, size);
+            try {
+                putObject(thumbnailName, contentType, new ByteArrayInputStream(data), data.length, thumbnailName);
+                variants.put(size, getFileUrl(thumbnailName, -1));
+            } catch (Exception e) {
+                log.warn("缩略图上传失败: {}, 错误: {}", thumbnailName, e.getMessage());
+            }
+        });
+        return variants;
     }
 
 
@@ -140,7 +302,7 @@ public class MinioFileServiceImpl implements FileService {
         String extension = getFileExtension(file.getOriginalFilename());
 
         // 验证是否为允许的文档类型
-        if (!minioConfig.getAllowedDocumentExtensionList().contains(extension.toLowerCase())) {
+        if (!minioConfig.isAllowedExtension(FileCategoryEnum.DOCUMENT, extension)) {
             throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文档类型: " + extension);
         }
 
@@ -159,11 +321,27 @@ public class MinioFileServiceImpl implements FileService {
      * @param inputStream 输入流
      * @param fileName    文件名
      * @param contentType 内容类型
-     * @param size        文件大小
+     * @param size        文件大小，未知时传-1
      * @return 文件上传响应对象
      */
     @Override
     public FileUploadVO uploadFile(InputStream inputStream, String fileName, String contentType, long size) {
+        return uploadFile(inputStream, fileName, contentType, size, getOwnerIdentity());
+    }
+
+    /**
+     * 通过InputStream上传文件，内容寻址对象的引用登记到指定持有人
+     *
+     * @param inputStream 输入流
+     * @param fileName    文件名
+     * @param contentType 内容类型
+     * @param size        文件大小，未知时传-1
+     * @param owner       引用持有人标识
+     * @return 文件上传响应对象
+     */
+    @Override
+    public FileUploadVO uploadFile(InputStream inputStream, String fileName, String contentType, long size,
+                                   String owner) {
         // 获取文件扩展名
         String extension = getFileExtension(fileName);
         if (extension.isEmpty()) {
@@ -171,7 +349,7 @@ public class MinioFileServiceImpl implements FileService {
         }
 
         // 验证文件扩展名是否在允许列表中
-        if (!minioConfig.getAllAllowedExtensions().contains(extension.toLowerCase())) {
+        if (!minioConfig.isAllowedExtension(extension)) {
             throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文件类型: " + extension);
         }
 
@@ -181,21 +359,35 @@ public class MinioFileServiceImpl implements FileService {
                     "文件大小超出限制，最大允许: " + (minioConfig.getMaxSize() / 1024 / 1024) + "MB");
         }
 
+        // 大小未知时边上传边统计，超出限制立即中断
+        LimitedInputStream limitedStream = null;
+        if (size < 0) {
+            limitedStream = new LimitedInputStream(inputStream, minioConfig.getMaxSize());
+            inputStream = limitedStream;
+        }
+
+        // 不支持mark的流包装为可回退流，用于识别文件头
+        if (!inputStream.markSupported()) {
+            inputStream = new PushbackInputStream(inputStream, FileTypeSniffer.SNIFF_LIMIT);
+        }
+
         try {
-            // 生成存储对象名
-            String objectName = generateObjectName(extension);
-            // 设置文件元数据
-            Map<String, String> userMetadata = new HashMap<>();
-            userMetadata.put("originalFilename", fileName);
+            // 根据文件头识别真实类型，修正内容类型和存储目录
+            FileTypeEnum detected = FileTypeSniffer.sniff(inputStream);
+            String storageExtension = resolveExtension(detected, extension);
+            if (detected != FileTypeEnum.UNKNOWN) {
+                contentType = detected.getMimeType();
+            }
 
-            // 上传文件到MinIO
-            minioClient.putObject(PutObjectArgs.builder()
-                    .bucket(minioConfig.getBucketName())
-                    .object(objectName)
-                    .contentType(contentType)
-                    .stream(inputStream, size, -1)
-                    .userMetadata(userMetadata)
-                    .build());
+            String objectName;
+            if (minioConfig.isContentAddressed()) {
+                // 内容寻址：相同内容已存在时跳过上传
+                objectName = uploadContentAddressed(inputStream, fileName, contentType, size, storageExtension, owner);
+            } else {
+                // 生成存储对象名并上传文件到MinIO
+                objectName = generateObjectName(storageExtension);
+                putObject(objectName, contentType, inputStream, size, fileName);
+            }
 
             // 获取文件访问URL
             String url = getFileUrl(objectName, -1);
@@ -203,12 +395,14 @@ public class MinioFileServiceImpl implements FileService {
             // 构建并返回上传响应对象
             return FileUploadVO.builder()
                     .originalFilename(fileName)
-                    .size(size)
+                    .size(limitedStream != null ? limitedStream.getCount() : size)
                     .contentType(contentType)
                     .objectName(objectName)
                     .url(url)
-                    .extension(extension)
+                    .extension(storageExtension)
                     .build();
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("文件上传失败: {}", e.getMessage(), e);
             throw new BusinessException(ErrorCode.UPLOAD_FAILURE, "文件上传失败: " + e.getMessage());
@@ -224,26 +418,150 @@ public class MinioFileServiceImpl implements FileService {
      */
     @Override
     public boolean deleteFile(String objectName) {
+        return deleteFile(objectName, getOwnerIdentity());
+    }
+
+    /**
+     * 删除文件，内容寻址对象释放指定持有人的引用
+     *
+     * @param objectName 对象名称
+     * @param owner      引用持有人标识
+     * @return 是否删除成功
+     */
+    @Override
+    public boolean deleteFile(String objectName, String owner) {
+        // 已确认不存在的对象直接返回，不访问MinIO
+        if (missCache.getIfPresent(objectName) != null) {
+            return false;
+        }
+
+        Timer.Sample sample = fileMetricsService.start();
         try {
-            // 检查文件是否存在
-            if (!isFileExist(objectName)) {
-                return false;
+            // 内容寻址对象被多个文件共享，只释放调用方持有的一次引用，最后一个引用释放时才删除对象
+            String hash = getContentHash(objectName);
+            if (hash != null) {
+                long remaining = releaseContentReference(hash, owner);
+                if (remaining < 0) {
+                    // 调用方未持有引用（重复删除或他人的对象）时不做任何修改
+                    log.warn("未持有内容对象的引用，忽略删除: {}", objectName);
+                    return false;
+                }
+                if (remaining > 0) {
+                    fileMetricsService.recordDelete(sample, FileMetricsService.DELETE_SINGLE,
+                            FileMetricsService.OUTCOME_SUCCESS, 1);
+                    return true;
+                }
             }
 
-            // 删除MinIO中的文件
+            // 删除MinIO中的文件，删除操作是幂等的，无需先statObject确认存在
             minioClient.removeObject(RemoveObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(objectName)
                     .build());
 
+            // 删除成功后更新存在性缓存，内容寻址对象同步移除本地索引
+            markMissing(objectName);
+            invalidateContentIndex(objectName);
+            removeThumbnails(objectName);
+            imagePreviewService.evict(Collections.singletonList(objectName));
+
+            fileMetricsService.recordDelete(sample, FileMetricsService.DELETE_SINGLE,
+                    FileMetricsService.OUTCOME_SUCCESS, 1);
             return true;
         } catch (Exception e) {
+            fileMetricsService.recordDelete(sample, FileMetricsService.DELETE_SINGLE,
+                    FileMetricsService.OUTCOME_FAILURE, 1);
             log.error("文件删除失败: {}", e.getMessage(), e);
             throw new BusinessException(ErrorCode.DELETE_FAILURE, "文件删除失败: " + e.getMessage());
         }
     }
 
 
+    /**
+     * 批量删除文件，使用MinIO的removeObjects接口一次请求删除多个对象
+     *
+     * @param objectNames 对象名称列表
+     * @return 对象名称 -> 是否删除成功
+     */
+    @Override
+    public Map<String, Boolean> deleteFiles(List<String> objectNames) {
+        List<String> names = distinctObjectNames(objectNames);
+        Map<String, Boolean> result = new LinkedHashMap<>(names.size() * 2);
+
+        // 已确认不存在的对象不再发送删除请求
+        String owner = getOwnerIdentity();
+        List<String> toDelete = new ArrayList<>(names.size());
+        List<DeleteObject> objects = new ArrayList<>(names.size());
+        for (String objectName : names) {
+            if (missCache.getIfPresent(objectName) != null) {
+                result.put(objectName, false);
+                continue;
+            }
+            // 内容寻址对象只释放调用方持有的一次引用，仍被引用时不删除对象，未持有引用时不做修改
+            String hash = getContentHash(objectName);
+            if (hash != null) {
+                try {
+                    long remaining = releaseContentReference(hash, owner);
+                    if (remaining != 0) {
+                        result.put(objectName, remaining > 0);
+                        continue;
+                    }
+                } catch (Exception e) {
+                    log.warn("释放内容引用失败: {}, 错误: {}", objectName, e.getMessage());
+                    result.put(objectName, false);
+                    continue;
+                }
+            }
+            toDelete.add(objectName);
+            objects.add(new DeleteObject(objectName));
+        }
+        if (objects.isEmpty()) {
+            return result;
+        }
+
+        // 图片的缩略图随同一请求删除，不计入返回结果
+        for (String objectName : toDelete) {
+            if (FileTypeEnum.isImageExtension(getFileExtension(objectName))) {
+                imageProcessService.getThumbnailObjectNames(objectName)
+                        .forEach(thumbnailName -> objects.add(new DeleteObject(thumbnailName)));
+            }
+        }
+
+        // removeObjects是惰性执行的，遍历结果时才真正发送请求，结果中只包含删除失败的对象
+        Set<String> failed = new HashSet<>();
+        Timer.Sample sample = fileMetricsService.start();
+        try {
+            Iterable<Result<DeleteError>> errors = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .objects(objects)
+                    .build());
+            for (Result<DeleteError> error : errors) {
+                DeleteError deleteError = error.get();
+                failed.add(deleteError.objectName());
+                log.warn("文件删除失败: {}, 错误: {}", deleteError.objectName(), deleteError.message());
+            }
+        } catch (Exception e) {
+            fileMetricsService.recordDelete(sample, FileMetricsService.DELETE_BATCH,
+                    FileMetricsService.OUTCOME_FAILURE, toDelete.size());
+            log.error("批量删除文件失败: {}", e.getMessage(), e);
+            throw new BusinessException(ErrorCode.DELETE_FAILURE, "批量删除文件失败: " + e.getMessage());
+        }
+
+        for (String objectName : toDelete) {
+            boolean deleted = !failed.contains(objectName);
+            if (deleted) {
+                markMissing(objectName);
+                invalidateContentIndex(objectName);
+            }
+            result.put(objectName, deleted);
+        }
+        imagePreviewService.evict(toDelete);
+        fileMetricsService.recordDelete(sample, FileMetricsService.DELETE_BATCH,
+                failed.isEmpty() ? FileMetricsService.OUTCOME_SUCCESS : FileMetricsService.OUTCOME_FAILURE,
+                toDelete.size());
+        return result;
+    }
+
     /**
      * 获取文件访问URL
      *
@@ -254,6 +572,16 @@ public class MinioFileServiceImpl implements FileService {
     @Override
     public String getFileUrl(String objectName, int expiry) {
         try {
+            // 指定了有效期时返回预签名下载URL，不依赖存储桶的公开读策略
+            if (expiry > 0) {
+                return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                        .method(Method.GET)
+                        .bucket(minioConfig.getBucketName())
+                        .object(objectName)
+                        .expiry(Math.min(expiry, MAX_PRESIGNED_EXPIRY))
+                        .build());
+            }
+
             String endpoint = minioConfig.getEndpoint();
             String bucketName = minioConfig.getBucketName();
 
@@ -270,6 +598,121 @@ public class MinioFileServiceImpl implements FileService {
         }
     }
 
+    /**
+     * 创建预签名上传URL，客户端直接上传到对象存储
+     *
+     * @param fileName 原始文件名
+     * @param expiry   过期时间(秒)，为空时使用默认配置
+     * @return 预签名上传信息
+     */
+    @Override
+    public PresignedUploadVO createPresignedUpload(String fileName, Integer expiry) {
+        // 获取并验证文件扩展名
+        String extension = getFileExtension(fileName);
+        if (extension.isEmpty() || !minioConfig.isAllowedExtension(extension)) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文件类型: " + extension);
+        }
+
+        int expirySeconds = expiry == null || expiry <= 0 ? minioConfig.getPresignedExpiry() : expiry;
+        expirySeconds = Math.min(expirySeconds, MAX_PRESIGNED_EXPIRY);
+
+        try {
+            String objectName = generateObjectName(extension);
+            String uploadUrl = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.PUT)
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .expiry(expirySeconds)
+                    .build());
+
+            // 记录签发的对象名及签发人，完成回调只接受本人签发的对象
+            stringRedisTemplate.opsForValue().set(String.format(PRESIGNED_UPLOAD_KEY, objectName), getOwnerIdentity(),
+                    expirySeconds + PRESIGNED_COMPLETE_GRACE, TimeUnit.SECONDS);
+
+            return PresignedUploadVO.builder()
+                    .objectName(objectName)
+                    .uploadUrl(uploadUrl)
+                    .contentType(FileTypeEnum.getMimeTypeByExtension(extension))
+                    .expiry(expirySeconds)
+                    .build();
+        } catch (Exception e) {
+            log.error("创建预签名上传URL失败: {}", e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "创建预签名上传URL失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 预签名上传完成回调，校验对象由当前用户签发，并通过statObject和文件头校验对象后返回文件信息
+     *
+     * @param objectName 对象名称
+     * @param fileName   原始文件名
+     * @return 文件上传响应对象
+     */
+    @Override
+    public FileUploadVO completePresignedUpload(String objectName, String fileName) {
+        String extension = getFileExtension(objectName);
+        if (extension.isEmpty() || !minioConfig.isAllowedExtension(extension)) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文件类型: " + extension);
+        }
+
+        // 只接受由当前用户签发且未过期的对象名，防止认领任意已有对象
+        String presignedKey = String.format(PRESIGNED_UPLOAD_KEY, objectName);
+        String issuer = stringRedisTemplate.opsForValue().get(presignedKey);
+        if (issuer == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "上传凭证不存在或已过期: " + objectName);
+        }
+        if (!issuer.equals(getOwnerIdentity())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权确认该上传: " + objectName);
+        }
+
+        StatObjectResponse stat;
+        try {
+            stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .build());
+        } catch (Exception e) {
+            log.error("预签名上传对象校验失败: {}, 错误: {}", objectName, e.getMessage());
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件未上传或已失效: " + objectName);
+        }
+
+        markExisting(objectName);
+
+        // 直传绕过了服务端的大小校验，这里补充校验，超出限制的对象直接删除
+        if (stat.size() > minioConfig.getMaxSize()) {
+            deleteFile(objectName);
+            stringRedisTemplate.delete(presignedKey);
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR,
+                    "文件大小超出限制，最大允许: " + (minioConfig.getMaxSize() / 1024 / 1024) + "MB");
+        }
+
+        // 与直接上传一致按文件头识别真实类型；对象名已签发无法改名，类型不符时直接删除
+        FileTypeEnum detected = sniffStoredObject(objectName);
+        String contentType = stat.contentType();
+        try {
+            if (!resolveExtension(detected, extension).equals(extension)) {
+                throw new BusinessException(ErrorCode.PARAMETER_ERROR, "文件内容与扩展名不符: " + extension);
+            }
+        } catch (BusinessException e) {
+            deleteFile(objectName);
+            stringRedisTemplate.delete(presignedKey);
+            throw e;
+        }
+        if (detected != FileTypeEnum.UNKNOWN) {
+            contentType = detected.getMimeType();
+        }
+        stringRedisTemplate.delete(presignedKey);
+
+        return FileUploadVO.builder()
+                .originalFilename(fileName != null ? fileName : objectName.substring(objectName.lastIndexOf('/') + 1))
+                .size(stat.size())
+                .contentType(contentType)
+                .objectName(objectName)
+                .url(getFileUrl(objectName, -1))
+                .extension(extension)
+                .build();
+    }
+
     /**
      * 检查文件是否存在
      *
@@ -278,17 +721,427 @@ public class MinioFileServiceImpl implements FileService {
      */
     @Override
     public boolean isFileExist(String objectName) {
+        // 优先使用存在性缓存
+        if (existCache.getIfPresent(objectName) != null) {
+            fileMetricsService.recordExistCache(true);
+            return true;
+        }
+        if (missCache.getIfPresent(objectName) != null) {
+            fileMetricsService.recordExistCache(true);
+            return false;
+        }
+        fileMetricsService.recordExistCache(false);
+
+        Timer.Sample sample = fileMetricsService.start();
         try {
             // 尝试获取文件统计信息，如果存在则返回true
             minioClient.statObject(StatObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(objectName)
                     .build());
+            fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_SUCCESS);
+            markExisting(objectName);
             return true;
+        } catch (ErrorResponseException e) {
+            // 只缓存明确的不存在结果，网络等临时错误不缓存
+            if (isNotFound(e)) {
+                fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_NOT_FOUND);
+                markMissing(objectName);
+            } else {
+                fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_FAILURE);
+            }
+            return false;
         } catch (Exception e) {
             // 如果文件不存在会抛出异常，返回false
+            fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_FAILURE);
+            return false;
+        }
+    }
+
+    /**
+     * 批量检查文件是否存在
+     * 缓存命中的直接返回，其余通过异步客户端并发statObject
+     *
+     * @param objectNames 对象名称列表
+     * @return 对象名称 -> 是否存在
+     */
+    @Override
+    public Map<String, Boolean> batchFileExist(List<String> objectNames) {
+        List<String> names = distinctObjectNames(objectNames);
+        Map<String, Boolean> result = new LinkedHashMap<>(names.size() * 2);
+
+        // 先发出所有未命中缓存的请求，再统一收集结果
+        Map<String, CompletableFuture<StatObjectResponse>> pending = new LinkedHashMap<>();
+        for (String objectName : names) {
+            if (existCache.getIfPresent(objectName) != null) {
+                result.put(objectName, true);
+            } else if (missCache.getIfPresent(objectName) != null) {
+                result.put(objectName, false);
+            } else {
+                try {
+                    pending.put(objectName, minioAsyncClient.statObject(StatObjectArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(objectName)
+                            .build()));
+                } catch (Exception e) {
+                    result.put(objectName, false);
+                }
+            }
+        }
+
+        pending.forEach((objectName, future) -> {
+            try {
+                future.join();
+                markExisting(objectName);
+                result.put(objectName, true);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof ErrorResponseException
+                        && isNotFound((ErrorResponseException) e.getCause())) {
+                    markMissing(objectName);
+                }
+                result.put(objectName, false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 获取文件元数据，短时间缓存
+     *
+     * @param objectName 对象名称
+     * @return 对象元数据
+     */
+    @Override
+    public StatObjectResponse statFile(String objectName) {
+        StatObjectResponse stat = statCache.getIfPresent(objectName);
+        if (stat != null) {
+            return stat;
+        }
+        if (missCache.getIfPresent(objectName) != null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件不存在: " + objectName);
+        }
+
+        Timer.Sample sample = fileMetricsService.start();
+        try {
+            stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .build());
+            fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_SUCCESS);
+        } catch (ErrorResponseException e) {
+            if (isNotFound(e)) {
+                fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_NOT_FOUND);
+                markMissing(objectName);
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件不存在: " + objectName);
+            }
+            fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_FAILURE);
+            log.error("获取文件信息失败: {}, 错误: {}", objectName, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取文件信息失败: " + e.getMessage());
+        } catch (Exception e) {
+            fileMetricsService.recordStat(sample, FileMetricsService.OUTCOME_FAILURE);
+            log.error("获取文件信息失败: {}, 错误: {}", objectName, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取文件信息失败: " + e.getMessage());
+        }
+        markExisting(objectName);
+        statCache.put(objectName, stat);
+        return stat;
+    }
+
+    /**
+     * 获取文件内容，指定区间时只从MinIO读取该区间
+     *
+     * @param objectName 对象名称
+     * @param offset     起始位置
+     * @param length     读取长度，为空时读取到末尾
+     * @return 文件内容输入流
+     */
+    @Override
+    public InputStream getFileStream(String objectName, long offset, Long length) {
+        try {
+            GetObjectArgs.Builder builder = GetObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName);
+            if (offset > 0) {
+                builder.offset(offset);
+            }
+            if (length != null) {
+                builder.length(length);
+            }
+            return minioClient.getObject(builder.build());
+        } catch (ErrorResponseException e) {
+            if (isNotFound(e)) {
+                markMissing(objectName);
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件不存在: " + objectName);
+            }
+            log.error("读取文件失败: {}, 错误: {}", objectName, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取文件失败: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("读取文件失败: {}, 错误: {}", objectName, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取文件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 删除图片对应的缩略图，删除操作是幂等的，不存在的缩略图不会报错
+     */
+    private void removeThumbnails(String objectName) {
+        if (!FileTypeEnum.isImageExtension(getFileExtension(objectName))) {
+            return;
+        }
+        List<DeleteObject> objects = imageProcessService.getThumbnailObjectNames(objectName).stream()
+                .map(DeleteObject::new)
+                .collect(Collectors.toList());
+        if (objects.isEmpty()) {
+            return;
+        }
+        try {
+            for (Result<DeleteError> error : minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .objects(objects)
+                    .build())) {
+                log.warn("缩略图删除失败: {}", error.get().objectName());
+            }
+        } catch (Exception e) {
+            log.warn("缩略图删除失败: {}, 错误: {}", objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * 替换文件名的扩展名
+     */
+    private String replaceExtension(String filename, String extension) {
+        if (filename == null || filename.isEmpty()) {
+            return "image." + extension;
+        }
+        int dot = filename.lastIndexOf('.');
+        return (dot < 0 ? filename : filename.substring(0, dot)) + "." + extension;
+    }
+
+    /**
+     * 判断是否为对象不存在的错误
+     */
+    private boolean isNotFound(ErrorResponseException e) {
+        String code = e.errorResponse().code();
+        return "NoSuchKey".equals(code) || "NoSuchObject".equals(code);
+    }
+
+    /**
+     * 去重并校验批量操作的对象名称
+     */
+    private List<String> distinctObjectNames(List<String> objectNames) {
+        if (objectNames == null || objectNames.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "对象名称列表不能为空");
+        }
+        List<String> names = objectNames.stream()
+                .filter(name -> name != null && !name.trim().isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (names.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "单次最多操作" + MAX_BATCH_SIZE + "个文件");
+        }
+        return names;
+    }
+
+    /**
+     * 标记对象存在
+     */
+    private void markExisting(String objectName) {
+        missCache.invalidate(objectName);
+        existCache.put(objectName, Boolean.TRUE);
+    }
+
+    /**
+     * 标记对象不存在
+     */
+    private void markMissing(String objectName) {
+        existCache.invalidate(objectName);
+        statCache.invalidate(objectName);
+        missCache.put(objectName, Boolean.TRUE);
+    }
+
+    /**
+     * 上传对象到MinIO
+     *
+     * @param objectName       对象名
+     * @param contentType      内容类型
+     * @param stream           输入流
+     * @param size             内容大小，未知时传-1，按分片流式上传
+     * @param originalFilename 原始文件名，写入对象元数据
+     */
+    private void putObject(String objectName, String contentType, InputStream stream, long size,
+                           String originalFilename) throws Exception {
+        // 设置文件元数据
+        Map<String, String> userMetadata = new HashMap<>();
+        userMetadata.put("originalFilename", originalFilename);
+
+        // 大小未知时统计实际上传的字节数
+        LimitedInputStream counted = size < 0 ? new LimitedInputStream(stream, Long.MAX_VALUE) : null;
+        Timer.Sample sample = fileMetricsService.start();
+        String outcome = FileMetricsService.OUTCOME_FAILURE;
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .contentType(contentType)
+                    .stream(counted != null ? counted : stream, size, size < 0 ? UNKNOWN_SIZE_PART_SIZE : -1)
+                    .userMetadata(userMetadata)
+                    .build());
+            outcome = FileMetricsService.OUTCOME_SUCCESS;
+        } finally {
+            fileMetricsService.recordUpload(sample, objectName, outcome, counted != null ? counted.getCount() : size);
+        }
+        statCache.invalidate(objectName);
+        markExisting(objectName);
+    }
+
+    /**
+     * 以内容寻址方式上传输入流
+     * 内存中的数据直接回退重读，其他流边计算哈希边落盘到临时文件，避免整体读入内存
+     *
+     * @return 对象名
+     */
+    private String uploadContentAddressed(InputStream inputStream, String fileName, String contentType,
+                                          long size, String extension, String owner) throws Exception {
+        if (size >= 0 && inputStream instanceof ByteArrayInputStream) {
+            inputStream.mark(0);
+            String hash = DigestUtil.sha256Hex(inputStream);
+            inputStream.reset();
+
+            String objectName = generateContentObjectName(hash, extension);
+            InputStream data = inputStream;
+            putContentObject(hash, objectName, owner, () -> putObject(objectName, contentType, data, size, fileName));
+            return objectName;
+        }
+
+        Path tempFile = Files.createTempFile("upload-", "." + extension);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Files.copy(new DigestInputStream(inputStream, digest), tempFile, StandardCopyOption.REPLACE_EXISTING);
+            String hash = HexUtil.encodeHexStr(digest.digest());
+
+            String objectName = generateContentObjectName(hash, extension);
+            putContentObject(hash, objectName, owner, () -> {
+                try (InputStream fileStream = Files.newInputStream(tempFile)) {
+                    putObject(objectName, contentType, fileStream, Files.size(tempFile), fileName);
+                }
+            });
+            return objectName;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 为持有人登记一次内容寻址对象的引用，对象不存在时上传
+     * 先增加引用计数再检查对象，避免并发的删除在检查之后移除对象
+     *
+     * @param hash       内容SHA-256
+     * @param objectName 对象名
+     * @param owner      引用持有人标识
+     * @param upload     上传逻辑
+     */
+    private void putContentObject(String hash, String objectName, String owner, ContentUpload upload)
+            throws Exception {
+        stringRedisTemplate.opsForHash().increment(String.format(CONTENT_REF_KEY, hash), owner, 1);
+        try {
+            if (!isContentStored(hash, objectName)) {
+                upload.upload();
+                contentIndex.put(hash, objectName);
+            }
+        } catch (Exception e) {
+            releaseContentReference(hash, owner);
+            throw e;
+        }
+    }
+
+    /**
+     * 为持有人登记一次已存储对象的引用，复用已上传的对象地址时调用
+     * 内容寻址对象增加持有人的引用计数，对象已被删除时撤销登记；其他对象不共享，无需登记
+     *
+     * @param objectName 对象名称
+     * @param owner      引用持有人标识
+     * @return 对象是否仍存在，不存在时调用方不能复用该地址
+     */
+    @Override
+    public boolean acquireReference(String objectName, String owner) {
+        String hash = getContentHash(objectName);
+        if (hash == null) {
+            return isFileExist(objectName);
+        }
+        stringRedisTemplate.opsForHash().increment(String.format(CONTENT_REF_KEY, hash), owner, 1);
+        if (isFileExist(objectName)) {
+            return true;
+        }
+        releaseContentReference(hash, owner);
+        return false;
+    }
+
+    /**
+     * 撤销一次为持有人登记的引用
+     * 内容寻址对象按删除规则释放引用；其他对象没有引用登记，可能已通过来源缓存被其他文档复用，保留不删除
+     *
+     * @param objectName 对象名称
+     * @param owner      引用持有人标识
+     */
+    @Override
+    public void releaseReference(String objectName, String owner) {
+        if (getContentHash(objectName) != null) {
+            deleteFile(objectName, owner);
+        }
+    }
+
+    /**
+     * 判断内容是否已按该对象名存储
+     * 本地索引命中时通过存在性缓存确认对象仍存在，只有缓存过期后才访问MinIO；
+     * 本节点删除对象时同步移除索引，其他节点的删除最多在存在性缓存有效期内未被发现。
+     * 未命中时直接上传，对象名由哈希确定，重复上传只会覆盖为相同内容
+     */
+    private boolean isContentStored(String hash, String objectName) {
+        if (!objectName.equals(contentIndex.getIfPresent(hash))) {
             return false;
         }
+        if (isFileExist(objectName)) {
+            return true;
+        }
+        contentIndex.invalidate(hash);
+        return false;
+    }
+
+    /**
+     * 释放持有人的一次内容寻址对象引用
+     *
+     * @param hash  内容SHA-256
+     * @param owner 引用持有人标识
+     * @return 剩余的引用持有人数，0表示已没有其他引用可以删除对象，小于0表示该持有人没有引用
+     */
+    private long releaseContentReference(String hash, String owner) {
+        Long remaining = stringRedisTemplate.execute(contentReleaseScript,
+                Collections.singletonList(String.format(CONTENT_REF_KEY, hash)), owner);
+        return remaining == null ? -1 : remaining;
+    }
+
+    /**
+     * 获取内容寻址对象名中的内容哈希
+     *
+     * @return 内容哈希，不是内容寻址对象时返回null
+     */
+    private String getContentHash(String objectName) {
+        if (!objectName.startsWith(CONTENT_DIR + "/")) {
+            return null;
+        }
+        String filename = objectName.substring(objectName.lastIndexOf('/') + 1);
+        int dot = filename.indexOf('.');
+        return dot < 0 ? filename : filename.substring(0, dot);
+    }
+
+    /**
+     * 删除内容寻址对象时移除对应的索引项
+     */
+    private void invalidateContentIndex(String objectName) {
+        String hash = getContentHash(objectName);
+        if (hash != null) {
+            contentIndex.invalidate(hash);
+        }
     }
 
     /**
@@ -299,27 +1152,105 @@ public class MinioFileServiceImpl implements FileService {
      * @param extension 文件扩展名
      * @return 生成的对象名
      */
-    private String generateObjectName(String extension) {
+    @Override
+    public String generateObjectName(String extension) {
         // 获取当前日期
         String dateDir = LocalDateTime.now().format(DATE_FORMATTER);
 
-        // 确定文件类型目录
-        String typeDir;
+        // 生成UUID作为文件名
+        String uuid = UUID.randomUUID().toString();
+
+        // 组合生成最终的对象名
+        return String.format("%s/%s/%s.%s", dateDir, getTypeDir(extension), uuid, extension.toLowerCase());
+    }
+
+    /**
+     * 生成内容寻址存储路径
+     * 格式：content/文件类型/哈希前两位/哈希.扩展名
+     * 例如：content/images/9f/9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.png
+     *
+     * @param hash      内容SHA-256哈希
+     * @param extension 文件扩展名
+     * @return 生成的对象名
+     */
+    private String generateContentObjectName(String hash, String extension) {
+        return String.format("%s/%s/%s/%s.%s", CONTENT_DIR, getTypeDir(extension),
+                hash.substring(0, 2), hash, extension.toLowerCase());
+    }
+
+    /**
+     * 校验文件头识别出的真实类型，返回实际存储使用的扩展名
+     * 识别不出时信任原扩展名；同类文件格式不符时以真实类型为准，跨类别（如伪装成图片的文档）或不在白名单中则拒绝
+     *
+     * @param detected  文件头识别出的类型
+     * @param extension 文件名中的扩展名
+     * @return 存储使用的扩展名
+     */
+    private String resolveExtension(FileTypeEnum detected, String extension) {
+        if (detected == FileTypeEnum.UNKNOWN
+                || detected.getMimeType().equals(FileTypeEnum.getMimeTypeByExtension(extension))) {
+            return extension;
+        }
+        if (!getTypeDir(detected.getExtension()).equals(getTypeDir(extension))
+                || !minioConfig.isAllowedExtension(detected.getExtension())) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "文件内容与扩展名不符: " + extension);
+        }
+        log.warn("文件扩展名与内容不符，按实际类型存储: {} -> {}", extension, detected.getExtension());
+        return detected.getExtension();
+    }
+
+    /**
+     * 读取已存储对象的开头字节识别真实类型
+     *
+     * @param objectName 对象名称
+     * @return 识别出的文件类型，无法识别时返回UNKNOWN
+     */
+    private FileTypeEnum sniffStoredObject(String objectName) {
+        try (InputStream in = getFileStream(objectName, 0, (long) FileTypeSniffer.SNIFF_LIMIT)) {
+            byte[] head = in.readNBytes(FileTypeSniffer.SNIFF_LIMIT);
+            return FileTypeSniffer.sniff(head, head.length);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("读取文件头失败: {}, 错误: {}", objectName, e.getMessage());
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取文件头失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取当前请求的用户标识：已登录时为用户ID，否则为客户端IP；不在请求线程中时为anonymous
+     * 用作预签名上传的签发人和内容寻址对象的引用持有人
+     *
+     * @return 用户标识
+     */
+    @Override
+    public String getOwnerIdentity() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "anonymous";
+        }
+        if (StpUtil.isLogin()) {
+            return "user:" + StpUtil.getLoginId();
+        }
+        return "ip:" + attributes.getRequest().getRemoteAddr();
+    }
+
+    /**
+     * 根据扩展名确定文件类型目录
+     *
+     * @param extension 文件扩展名
+     * @return 类型目录
+     */
+    private String getTypeDir(String extension) {
         if (FileTypeEnum.isImageExtension(extension)) {
-            typeDir = "images";
+            return "images";
         } else if (FileTypeEnum.isVideoExtension(extension)) {
-            typeDir = "videos";
+            return "videos";
         } else if (FileTypeEnum.isDocumentExtension(extension)) {
-            typeDir = "documents";
+            return "documents";
         } else {
-            typeDir = "others";
+            return "others";
         }
-
-        // 生成UUID作为文件名
-        String uuid = UUID.randomUUID().toString();
-
-        // 组合生成最终的对象名
-        return String.format("%s/%s/%s.%s", dateDir, typeDir, uuid, extension.toLowerCase());
     }
 
     /**
@@ -399,4 +1330,12 @@ public class MinioFileServiceImpl implements FileService {
     public String getMinioEndpoint() {
         return minioConfig.getEndpoint();
     }
-}
\ No newline at end of file
+
+    /**
+     * 内容寻址对象的上传逻辑
+     */
+    private interface ContentUpload {
+
+        void upload() throws Exception;
+    }
+}
@@ -0,0 +1,288 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import io.minio.messages.Part;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.leocoder.devnote.hub.config.MinioMultipartClient;
+import org.leocoder.devnote.hub.domain.dto.file.MultipartInitRequest;
+import org.leocoder.devnote.hub.domain.vo.file.FileUploadVO;
+import org.leocoder.devnote.hub.domain.vo.file.MultipartUploadVO;
+import org.leocoder.devnote.hub.enums.FileTypeEnum;
+import org.leocoder.devnote.hub.exception.BusinessException;
+import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.leocoder.devnote.hub.exception.ThrowUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.leocoder.devnote.hub.constant.RedisKeyConstant.MULTIPART_PARTS_KEY;
+import static org.leocoder.devnote.hub.constant.RedisKeyConstant.MULTIPART_UPLOAD_KEY;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-17
+ * @description : 分片上传服务
+ * <p>
+ * 大文件（主要是视频）按分片直接以请求体流式写入MinIO，不经过Tomcat的multipart解析和临时目录。
+ * 任务信息和已完成分片记录在Redis中，客户端可以并行上传分片，连接中断后查询任务状态续传缺失的分片。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MultipartUploadService {
+
+    // MinIO允许的最大分片数量
+    private static final int MAX_PART_COUNT = 10000;
+
+    // MinIO要求的最小分片大小（最后一片除外）
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    // 任务信息字段
+    private static final String FIELD_OBJECT_NAME = "objectName";
+    private static final String FIELD_FILE_NAME = "fileName";
+    private static final String FIELD_FILE_SIZE = "fileSize";
+    private static final String FIELD_CONTENT_TYPE = "contentType";
+    private static final String FIELD_PART_SIZE = "partSize";
+    private static final String FIELD_PART_COUNT = "partCount";
+
+    private final MinioMultipartClient minioMultipartClient;
+    private final MinioConfig minioConfig;
+    private final FileService fileService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 初始化分片上传任务
+     *
+     * @param request 初始化请求
+     * @return 分片上传任务信息
+     */
+    public MultipartUploadVO initUpload(MultipartInitRequest request) {
+        String fileName = request.getFileName();
+        Long fileSize = request.getFileSize();
+        ThrowUtils.throwIf(fileName == null || fileName.trim().isEmpty(), ErrorCode.PARAMETER_ERROR, "文件名不能为空");
+        ThrowUtils.throwIf(fileSize == null || fileSize <= 0, ErrorCode.PARAMETER_ERROR, "文件大小不正确");
+
+        // 验证文件扩展名是否在允许列表中
+        String extension = getFileExtension(fileName);
+        if (!minioConfig.isAllowedExtension(extension)) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR, "不支持的文件类型: " + extension);
+        }
+
+        // 验证文件大小
+        if (fileSize > minioConfig.getMultipartMaxSize()) {
+            throw new BusinessException(ErrorCode.PARAMETER_ERROR,
+                    "文件大小超出限制，最大允许: " + (minioConfig.getMultipartMaxSize() / 1024 / 1024) + "MB");
+        }
+
+        // 计算分片大小和数量，分片过多时自动放大分片
+        long partSize = Math.max(MIN_PART_SIZE, minioConfig.getMultipartPartSize());
+        if ((fileSize + partSize - 1) / partSize > MAX_PART_COUNT) {
+            partSize = (fileSize + MAX_PART_COUNT - 1) / MAX_PART_COUNT;
+        }
+        int partCount = (int) ((fileSize + partSize - 1) / partSize);
+
+        String contentType = request.getContentType();
+        if (contentType == null || contentType.trim().isEmpty()) {
+            contentType = FileTypeEnum.getMimeTypeByExtension(extension);
+        }
+
+        try {
+            String objectName = fileService.generateObjectName(extension);
+            String uploadId = minioMultipartClient.createMultipartUpload(
+                    minioConfig.getBucketName(), objectName, contentType, fileName);
+
+            // 记录任务信息
+            Map<String, String> meta = new HashMap<>();
+            meta.put(FIELD_OBJECT_NAME, objectName);
+            meta.put(FIELD_FILE_NAME, fileName);
+            meta.put(FIELD_FILE_SIZE, String.valueOf(fileSize));
+            meta.put(FIELD_CONTENT_TYPE, contentType);
+            meta.put(FIELD_PART_SIZE, String.valueOf(partSize));
+            meta.put(FIELD_PART_COUNT, String.valueOf(partCount));
+            String uploadKey = String.format(MULTIPART_UPLOAD_KEY, uploadId);
+            stringRedisTemplate.opsForHash().putAll(uploadKey, meta);
+            stringRedisTemplate.expire(uploadKey, minioConfig.getMultipartExpireHours(), TimeUnit.HOURS);
+
+            log.info("分片上传任务已创建: {}, 对象: {}, 分片数: {}", uploadId, objectName, partCount);
+            return buildUploadVO(uploadId, meta, List.of());
+        } catch (Exception e) {
+            log.error("创建分片上传任务失败: {}", e.getMessage(), e);
+            throw new BusinessException(ErrorCode.UPLOAD_FAILURE, "创建分片上传任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询分片上传任务状态，用于断点续传
+     *
+     * @param uploadId 分片上传任务ID
+     * @return 分片上传任务信息
+     */
+    public MultipartUploadVO getUploadStatus(String uploadId) {
+        Map<String, String> meta = getUploadMeta(uploadId);
+        return buildUploadVO(uploadId, meta, getUploadedParts(uploadId));
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param uploadId      分片上传任务ID
+     * @param partNumber    分片序号，从1开始
+     * @param inputStream   分片数据
+     * @param contentLength 分片大小
+     * @return 是否上传成功
+     */
+    public boolean uploadPart(String uploadId, int partNumber, InputStream inputStream, long contentLength) {
+        Map<String, String> meta = getUploadMeta(uploadId);
+        int partCount = Integer.parseInt(meta.get(FIELD_PART_COUNT));
+        long partSize = Long.parseLong(meta.get(FIELD_PART_SIZE));
+        long fileSize = Long.parseLong(meta.get(FIELD_FILE_SIZE));
+
+        ThrowUtils.throwIf(partNumber < 1 || partNumber > partCount, ErrorCode.PARAMETER_ERROR,
+                "分片序号超出范围: " + partNumber);
+
+        // 除最后一片外，分片大小必须与任务约定一致
+        long expectedSize = partNumber < partCount ? partSize : fileSize - partSize * (partCount - 1);
+        ThrowUtils.throwIf(contentLength != expectedSize, ErrorCode.PARAMETER_ERROR,
+                "分片大小不正确，期望: " + expectedSize + "，实际: " + contentLength);
+
+        try {
+            String etag = minioMultipartClient.uploadPart(minioConfig.getBucketName(),
+                    meta.get(FIELD_OBJECT_NAME), uploadId, partNumber, inputStream, contentLength);
+
+            // 记录已完成的分片，并刷新任务过期时间
+            String partsKey = String.format(MULTIPART_PARTS_KEY, uploadId);
+            stringRedisTemplate.opsForHash().put(partsKey, String.valueOf(partNumber), etag);
+            stringRedisTemplate.expire(partsKey, minioConfig.getMultipartExpireHours(), TimeUnit.HOURS);
+            stringRedisTemplate.expire(String.format(MULTIPART_UPLOAD_KEY, uploadId),
+                    minioConfig.getMultipartExpireHours(), TimeUnit.HOURS);
+            return true;
+        } catch (Exception e) {
+            log.error("分片上传失败: {}, 分片: {}, 错误: {}", uploadId, partNumber, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.UPLOAD_FAILURE, "分片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 合并分片，完成上传
+     *
+     * @param uploadId 分片上传任务ID
+     * @return 文件上传响应对象
+     */
+    public FileUploadVO completeUpload(String uploadId) {
+        Map<String, String> meta = getUploadMeta(uploadId);
+        int partCount = Integer.parseInt(meta.get(FIELD_PART_COUNT));
+        String objectName = meta.get(FIELD_OBJECT_NAME);
+
+        // 检查分片是否齐全
+        Map<Object, Object> etags = stringRedisTemplate.opsForHash().entries(String.format(MULTIPART_PARTS_KEY, uploadId));
+        Part[] parts = new Part[partCount];
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            Object etag = etags.get(String.valueOf(partNumber));
+            ThrowUtils.throwIf(etag == null, ErrorCode.PARAMETER_ERROR, "分片未上传完成，缺少分片: " + partNumber);
+            parts[partNumber - 1] = new Part(partNumber, (String) etag);
+        }
+
+        try {
+            minioMultipartClient.completeMultipartUpload(minioConfig.getBucketName(), objectName, uploadId, parts);
+            clearUploadState(uploadId);
+            log.info("分片上传已完成: {}, 对象: {}", uploadId, objectName);
+
+            String fileName = meta.get(FIELD_FILE_NAME);
+            return FileUploadVO.builder()
+                    .originalFilename(fileName)
+                    .size(Long.parseLong(meta.get(FIELD_FILE_SIZE)))
+                    .contentType(meta.get(FIELD_CONTENT_TYPE))
+                    .objectName(objectName)
+                    .url(fileService.getFileUrl(objectName, -1))
+                    .extension(getFileExtension(fileName))
+                    .build();
+        } catch (Exception e) {
+            log.error("合并分片失败: {}, 错误: {}", uploadId, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.UPLOAD_FAILURE, "合并分片失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 取消分片上传任务
+     *
+     * @param uploadId 分片上传任务ID
+     * @return 是否取消成功
+     */
+    public boolean abortUpload(String uploadId) {
+        Map<String, String> meta = getUploadMeta(uploadId);
+        try {
+            minioMultipartClient.abortMultipartUpload(minioConfig.getBucketName(), meta.get(FIELD_OBJECT_NAME), uploadId);
+            clearUploadState(uploadId);
+            log.info("分片上传已取消: {}", uploadId);
+            return true;
+        } catch (Exception e) {
+            log.error("取消分片上传失败: {}, 错误: {}", uploadId, e.getMessage(), e);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "取消分片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取任务信息，不存在或已过期时抛出异常
+     */
+    private Map<String, String> getUploadMeta(String uploadId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(String.format(MULTIPART_UPLOAD_KEY, uploadId));
+        ThrowUtils.throwIf(entries.isEmpty(), ErrorCode.NOT_FOUND_ERROR, "分片上传任务不存在或已过期: " + uploadId);
+
+        Map<String, String> meta = new HashMap<>(entries.size() * 2);
+        entries.forEach((key, value) -> meta.put((String) key, (String) value));
+        return meta;
+    }
+
+    /**
+     * 获取已上传的分片序号
+     */
+    private List<Integer> getUploadedParts(String uploadId) {
+        return stringRedisTemplate.opsForHash().keys(String.format(MULTIPART_PARTS_KEY, uploadId))
+                .stream()
+                .map(key -> Integer.parseInt((String) key))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 清理任务状态
+     */
+    private void clearUploadState(String uploadId) {
+        stringRedisTemplate.delete(List.of(
+                String.format(MULTIPART_UPLOAD_KEY, uploadId),
+                String.format(MULTIPART_PARTS_KEY, uploadId)));
+    }
+
+    /**
+     * 构建任务信息VO
+     */
+    private MultipartUploadVO buildUploadVO(String uploadId, Map<String, String> meta, List<Integer> uploadedParts) {
+        return MultipartUploadVO.builder()
+                .uploadId(uploadId)
+                .objectName(meta.get(FIELD_OBJECT_NAME))
+                .fileName(meta.get(FIELD_FILE_NAME))
+                .fileSize(Long.parseLong(meta.get(FIELD_FILE_SIZE)))
+                .partSize(Long.parseLong(meta.get(FIELD_PART_SIZE)))
+                .partCount(Integer.parseInt(meta.get(FIELD_PART_COUNT)))
+                .uploadedParts(uploadedParts)
+                .build();
+    }
+
+    /**
+     * 获取文件扩展名
+     */
+    private String getFileExtension(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
+        }
+        return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,111 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.devnote.hub.config.RateLimitConfig;
+import org.leocoder.devnote.hub.config.RateLimitConfig.Rule;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import static org.leocoder.devnote.hub.constant.RedisKeyConstant.RATE_LIMIT_KEY;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 接口限流服务
+ * <p>
+ * 令牌桶状态保存在Redis中，由Lua脚本按Redis服务端时间原子地完成补充和扣减，多节点共享同一用户的配额；
+ * 单节点并发限制使用本地信号量，获取不到时立即失败。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitService {
+
+    private final RateLimitConfig rateLimitConfig;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 规则名称 -> 单节点并发许可
+    private final Map<String, Semaphore> localPermits = new HashMap<>();
+
+    private DefaultRedisScript<Long> tokenBucketScript;
+
+    /**
+     * 根据配置初始化并发许可和令牌桶脚本
+     */
+    @PostConstruct
+    public void init() {
+        rateLimitConfig.getRules().forEach((name, rule) ->
+                localPermits.put(name, new Semaphore(Math.max(1, rule.getMaxConcurrent()))));
+        tokenBucketScript = new DefaultRedisScript<>();
+        tokenBucketScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/rate_limit.lua")));
+        tokenBucketScript.setResultType(Long.class);
+    }
+
+    /**
+     * 获取限流规则
+     *
+     * @param name 规则名称
+     * @return 规则，未配置时返回null
+     */
+    public Rule getRule(String name) {
+        return rateLimitConfig.getRules().get(name);
+    }
+
+    /**
+     * 尝试获取单节点并发许可，不等待
+     *
+     * @param name 规则名称
+     * @return 是否获取成功
+     */
+    public boolean tryAcquireLocal(String name) {
+        Semaphore permits = localPermits.get(name);
+        return permits == null || permits.tryAcquire();
+    }
+
+    /**
+     * 释放单节点并发许可
+     *
+     * @param name 规则名称
+     */
+    public void releaseLocal(String name) {
+        Semaphore permits = localPermits.get(name);
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    /**
+     * 从用户的令牌桶中获取一个令牌
+     *
+     * @param name     规则名称
+     * @param identity 用户标识（登录用户ID或IP）
+     * @return 0表示获取成功，否则为建议的重试等待时间（毫秒）
+     */
+    public long tryAcquireToken(String name, String identity) {
+        Rule rule = getRule(name);
+        if (rule == null || rule.getRefillPerSecond() <= 0) {
+            return 0;
+        }
+        try {
+            Long wait = stringRedisTemplate.execute(tokenBucketScript,
+                    Collections.singletonList(String.format(RATE_LIMIT_KEY, name, identity)),
+                    String.valueOf(Math.max(1, rule.getCapacity())),
+                    String.valueOf(rule.getRefillPerSecond() / 1000));
+            return wait == null ? 0 : wait;
+        } catch (Exception e) {
+            log.warn("限流令牌获取失败: {}, 错误: {}", name, e.getMessage());
+            return rateLimitConfig.isFailOpen() ? 0 : 1000;
+        }
+    }
+}
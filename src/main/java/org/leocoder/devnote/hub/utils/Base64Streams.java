@@ -0,0 +1,110 @@
+package org.leocoder.devnote.hub.utils;
+
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Base64流式解码工具类
+ * <p>
+ * 直接在字符序列的指定区间上解码，不创建子字符串，也不一次性生成解码后的完整字节数组；
+ * 配合decodedLength预先算出解码后的大小，上传时可以按已知大小一次写入。
+ */
+public final class Base64Streams {
+
+    private Base64Streams() {
+    }
+
+    /**
+     * 创建解码输入流，读取时逐段解码，忽略换行等空白字符
+     *
+     * @param content 内容
+     * @param start   Base64数据起始位置
+     * @param end     Base64数据结束位置（不包含）
+     * @return 解码后的字节流
+     */
+    public static InputStream newDecodingStream(CharSequence content, int start, int end) {
+        return Base64.getMimeDecoder().wrap(new AsciiInputStream(content, start, end));
+    }
+
+    /**
+     * 计算解码后的字节数，只扫描字符不分配内存
+     *
+     * @param content 内容
+     * @param start   Base64数据起始位置
+     * @param end     Base64数据结束位置（不包含）
+     * @return 解码后的字节数
+     */
+    public static long decodedLength(CharSequence content, int start, int end) {
+        long count = 0;
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            if (isBase64Char(c)) {
+                count++;
+            }
+        }
+        if (count % 4 == 1) {
+            throw new IllegalArgumentException("Base64数据长度不正确");
+        }
+        return count / 4 * 3 + (count % 4 == 0 ? 0 : count % 4 - 1);
+    }
+
+    private static boolean isBase64Char(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/';
+    }
+
+    /**
+     * 将字符序列区间按ASCII逐字节读出的输入流
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private static final int NON_ALPHABET = '?';
+
+        private final CharSequence content;
+        private final int end;
+        private int pos;
+
+        AsciiInputStream(CharSequence content, int start, int end) {
+            this.content = content;
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            return pos < end ? toAscii(content.charAt(pos++)) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (pos >= end) {
+                return -1;
+            }
+            int n = Math.min(len, end - pos);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) toAscii(content.charAt(pos++));
+            }
+            return n;
+        }
+
+        /**
+         * 非ASCII字符转换为解码器会忽略的字符，避免截断后被误当作Base64字符
+         */
+        private static int toAscii(char c) {
+            return c < 0x80 ? c : NON_ALPHABET;
+        }
+
+        @Override
+        public int available() {
+            return end - pos;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.leocoder.devnote.hub.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 字符集编解码器与字节缓冲区对象池
+ * <p>
+ * CharsetDecoder/CharsetEncoder非线程安全，按字符集分别缓存空闲实例，使用方用完后归还；
+ * 每类对象的空闲数量有上限，超出的直接丢弃交给GC，借出未归还也不会造成泄漏。
+ */
+public final class CodecPool {
+
+    /**
+     * 池化字节缓冲区的大小
+     */
+    public static final int BUFFER_SIZE = 16 * 1024;
+
+    // 每类对象最多保留的空闲实例数
+    private static final int MAX_IDLE = 64;
+
+    private static final ConcurrentMap<Charset, BlockingQueue<CharsetDecoder>> DECODERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Charset, BlockingQueue<CharsetEncoder>> ENCODERS = new ConcurrentHashMap<>();
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<>(MAX_IDLE);
+
+    private CodecPool() {
+    }
+
+    /**
+     * 借出解码器，非法或无法映射的字节替换为替代字符
+     */
+    public static CharsetDecoder acquireDecoder(Charset charset) {
+        CharsetDecoder decoder = idleQueue(DECODERS, charset).poll();
+        if (decoder == null) {
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        return decoder;
+    }
+
+    /**
+     * 归还解码器
+     */
+    public static void releaseDecoder(CharsetDecoder decoder) {
+        decoder.reset();
+        idleQueue(DECODERS, decoder.charset()).offer(decoder);
+    }
+
+    /**
+     * 借出编码器，非法或无法映射的字符替换为替代字节
+     */
+    public static CharsetEncoder acquireEncoder(Charset charset) {
+        CharsetEncoder encoder = idleQueue(ENCODERS, charset).poll();
+        if (encoder == null) {
+            return charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        return encoder;
+    }
+
+    /**
+     * 归还编码器
+     */
+    public static void releaseEncoder(CharsetEncoder encoder) {
+        encoder.reset();
+        idleQueue(ENCODERS, encoder.charset()).offer(encoder);
+    }
+
+    /**
+     * 借出已清空的字节缓冲区
+     */
+    public static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = BUFFERS.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还字节缓冲区
+     */
+    public static void releaseBuffer(ByteBuffer buffer) {
+        BUFFERS.offer(buffer);
+    }
+
+    private static <T> BlockingQueue<T> idleQueue(ConcurrentMap<Charset, BlockingQueue<T>> pool, Charset charset) {
+        return pool.computeIfAbsent(charset, key -> new ArrayBlockingQueue<>(MAX_IDLE));
+    }
+}
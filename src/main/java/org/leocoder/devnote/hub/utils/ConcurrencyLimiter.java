@@ -0,0 +1,201 @@
+package org.leocoder.devnote.hub.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-16
+ * @description : 全局 + 按Key分组的并发限制器
+ * <p>
+ * 任务先在所属Key（例如图片域名）的队列中排队，取得Key许可后进入全局就绪队列，取得全局许可后才提交给执行器，
+ * 执行器线程不会阻塞在等待许可上：单个慢域名的积压只占用自己的队列，不会占满执行器让其他域名的任务饿死。
+ * 空闲Key的队列在最后一个任务结束后移除，不会随域名数量无限增长。
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * 全局并发上限
+     */
+    private final int globalLimit;
+
+    /**
+     * 单个Key的并发上限
+     */
+    private final int perKeyLimit;
+
+    /**
+     * 已取得全局许可、正在执行的任务数
+     */
+    private int globalRunning;
+
+    /**
+     * 已取得Key许可、等待全局许可的任务
+     */
+    private final Deque<Task<?>> readyQueue = new ArrayDeque<>();
+
+    /**
+     * 按Key分组的执行状态
+     */
+    private final Map<String, KeyState> keyStates = new HashMap<>();
+
+    /**
+     * 构造函数
+     * @param globalLimit 全局并发上限
+     * @param perKeyLimit 单个Key的并发上限
+     */
+    public ConcurrencyLimiter(int globalLimit, int perKeyLimit) {
+        this.globalLimit = Math.max(1, globalLimit);
+        this.perKeyLimit = Math.max(1, perKeyLimit);
+    }
+
+    /**
+     * 当前可用的全局许可数
+     */
+    public synchronized int availablePermits() {
+        return globalLimit - globalRunning;
+    }
+
+    /**
+     * 提交任务，取得Key许可和全局许可后在执行器中执行，调用方不阻塞
+     *
+     * @param key      分组Key，为null时只受全局限制
+     * @param task     任务
+     * @param executor 执行任务的执行器
+     * @return 任务结果，任务抛出的异常原样作为失败原因
+     */
+    public <T> CompletableFuture<T> submit(String key, Callable<T> task, Executor executor) {
+        Task<T> queued = new Task<>(key, task, executor);
+        List<Task<?>> dispatch;
+        synchronized (this) {
+            if (key == null) {
+                readyQueue.add(queued);
+            } else {
+                KeyState state = keyStates.computeIfAbsent(key, k -> new KeyState());
+                if (state.running < perKeyLimit) {
+                    state.running++;
+                    readyQueue.add(queued);
+                } else {
+                    state.waiting.add(queued);
+                }
+            }
+            dispatch = pollDispatchable();
+        }
+        dispatch(dispatch);
+        return queued.future;
+    }
+
+    /**
+     * 执行任务，释放许可后再完成结果，结果的回调不会占用许可
+     */
+    private <T> void run(Task<T> task) {
+        T value = null;
+        Throwable failure = null;
+        try {
+            value = task.callable.call();
+        } catch (Throwable e) {
+            failure = e;
+        }
+        release(task);
+        if (failure != null) {
+            task.future.completeExceptionally(failure);
+        } else {
+            task.future.complete(value);
+        }
+    }
+
+    /**
+     * 释放任务占用的许可，并把同一Key的下一个任务移入就绪队列
+     */
+    private void release(Task<?> task) {
+        List<Task<?>> dispatch;
+        synchronized (this) {
+            globalRunning--;
+            if (task.key != null) {
+                KeyState state = keyStates.get(task.key);
+                Task<?> next = state.waiting.poll();
+                if (next != null) {
+                    readyQueue.add(next);
+                } else if (--state.running == 0) {
+                    keyStates.remove(task.key);
+                }
+            }
+            dispatch = pollDispatchable();
+        }
+        dispatch(dispatch);
+    }
+
+    /**
+     * 在全局许可范围内取出就绪任务，调用方需持有锁
+     */
+    private List<Task<?>> pollDispatchable() {
+        List<Task<?>> dispatch = null;
+        while (globalRunning < globalLimit && !readyQueue.isEmpty()) {
+            if (dispatch == null) {
+                dispatch = new ArrayList<>();
+            }
+            globalRunning++;
+            dispatch.add(readyQueue.poll());
+        }
+        return dispatch;
+    }
+
+    /**
+     * 在锁外把已取得许可的任务提交给执行器，执行器拒绝时释放许可并以失败结束
+     */
+    private void dispatch(List<Task<?>> tasks) {
+        if (tasks == null) {
+            return;
+        }
+        for (Task<?> task : tasks) {
+            try {
+                task.executor.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                release(task);
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 单个Key的执行状态
+     */
+    private static class KeyState {
+
+        /**
+         * 已取得Key许可的任务数，包括等待全局许可的任务
+         */
+        private int running;
+
+        /**
+         * 等待Key许可的任务
+         */
+        private final Deque<Task<?>> waiting = new ArrayDeque<>();
+    }
+
+    /**
+     * 排队中的任务
+     */
+    private static class Task<T> {
+
+        private final String key;
+        private final Callable<T> callable;
+        private final Executor executor;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(String key, Callable<T> callable, Executor executor) {
+            this.key = key;
+            this.callable = callable;
+            this.executor = executor;
+        }
+    }
+}
@@ -2,156 +2,118 @@ package org.leocoder.devnote.hub.utils;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * @author : 程序员Leo
  * @version 1.0
  * @date 2025-05-14
  * @description : 文件编码检测工具类
+ * <p>
+ * 扫描完整内容而不是只取开头采样：UTF-8按状态机流式校验，跨缓冲区边界的多字节序列可以正确续接；
+ * 同时对GBK/GB18030的双字节、四字节结构计分。两种编码分别统计合法多字节序列和非法序列，按非法比例选择更可信的一方，
+ * 少量损坏字节不会让UTF-8文档被误判为GBK。纯ASCII区间每次按8字节整体判断。
+ * 扫描状态和读取缓冲区放在有上限的共享空闲池中借还，不与线程绑定，虚拟线程下也不会每个线程各分配一份；
+ * 池中有空闲实例时单次检测不产生新的对象分配，并发检测数超过空闲上限时才临时创建。
  */
 @Slf4j
 public class EncodingDetector {
 
-    // 常见编码的BOM标记
+    // 常见编码的BOM标记，UTF-32LE与UTF-16LE前缀相同，需要先判断较长的
     private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
     private static final byte[] UTF16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
     private static final byte[] UTF16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
     private static final byte[] UTF32LE_BOM = {(byte) 0xFF, (byte) 0xFE, (byte) 0x00, (byte) 0x00};
     private static final byte[] UTF32BE_BOM = {(byte) 0x00, (byte) 0x00, (byte) 0xFE, (byte) 0xFF};
 
+    private static final Charset UTF32LE = Charset.forName("UTF-32LE");
+    private static final Charset UTF32BE = Charset.forName("UTF-32BE");
+    private static final Charset GBK = Charset.forName("GBK");
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    // 读取缓冲区大小
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // UTF-8非法序列比例不超过该值时视为含少量损坏字节的UTF-8，GBK文本中UTF-8合法序列的比例远低于此
+    private static final double UTF8_TOLERANCE = 0.01;
+
+    // 8字节中任一字节最高位为1即包含非ASCII字符
+    private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
+    // 以long方式读取byte数组，允许非对齐访问
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // 最多保留的空闲扫描器数量，超出的直接丢弃交给GC
+    private static final int MAX_IDLE = 16;
+
+    private static final BlockingQueue<Scanner> SCANNERS = new ArrayBlockingQueue<>(MAX_IDLE);
+
+    private EncodingDetector() {
+    }
+
     /**
-     * 自动检测文本内容的编码
+     * 读取并扫描整个输入流，检测文本内容的编码
+     * 输入流会被读到末尾，调用方需要重新打开数据源后再按检测结果解码
      *
      * @param inputStream 输入流
      * @return 检测到的字符集
      */
     public static Charset detectEncoding(InputStream inputStream) throws IOException {
-        if (!inputStream.markSupported()) {
-            inputStream = new BufferedInputStream(inputStream);
-        }
-        
-        // 标记当前位置，以便回退
-        inputStream.mark(4);
-        
-        // 读取前4个字节用于检测BOM
-        byte[] bom = new byte[4];
-        int read = inputStream.read(bom);
-        
-        // 重置到开始位置
-        inputStream.reset();
-        
-        // 根据BOM判断编码
-        if (read >= 3 && Arrays.equals(Arrays.copyOf(bom, 3), UTF8_BOM)) {
-            log.info("检测到UTF-8编码(带BOM)");
-            return StandardCharsets.UTF_8;
-        } else if (read >= 2 && Arrays.equals(Arrays.copyOf(bom, 2), UTF16LE_BOM)) {
-            log.info("检测到UTF-16LE编码");
-            return StandardCharsets.UTF_16LE;
-        } else if (read >= 2 && Arrays.equals(Arrays.copyOf(bom, 2), UTF16BE_BOM)) {
-            log.info("检测到UTF-16BE编码");
-            return StandardCharsets.UTF_16BE;
-        } else if (read >= 4 && Arrays.equals(bom, UTF32LE_BOM)) {
-            log.info("检测到UTF-32LE编码");
-            return Charset.forName("UTF-32LE");
-        } else if (read >= 4 && Arrays.equals(bom, UTF32BE_BOM)) {
-            log.info("检测到UTF-32BE编码");
-            return Charset.forName("UTF-32BE");
-        }
-        
-        // 如果没有BOM，尝试通过内容分析判断编码
-        return detectEncodingByContent(inputStream);
+        Scanner scanner = acquireScanner();
+        try {
+            byte[] buffer = scanner.buffer;
+
+            // 先尽量读满一个缓冲区，用于判断BOM
+            int read = readFully(inputStream, buffer);
+            Charset bomCharset = detectBom(buffer, read);
+            if (bomCharset != null) {
+                return bomCharset;
+            }
+            if (read <= 0) {
+                return StandardCharsets.UTF_8;
+            }
+
+            scanner.update(buffer, 0, read);
+            while ((read = inputStream.read(buffer)) >= 0) {
+                scanner.update(buffer, 0, read);
+            }
+            return scanner.result();
+        } finally {
+            SCANNERS.offer(scanner);
+        }
     }
-    
+
     /**
-     * 通过内容分析判断编码
-     * 
-     * @param inputStream 输入流
+     * 检测字节数组中文本内容的编码
+     *
+     * @param data   内容
+     * @param offset 起始位置
+     * @param length 长度
      * @return 检测到的字符集
      */
-    private static Charset detectEncodingByContent(InputStream inputStream) throws IOException {
-        // 标记当前位置，以便回退
-        inputStream.mark(4096);
-        
-        byte[] buffer = new byte[4096];
-        int read = inputStream.read(buffer);
-        
-        // 重置到开始位置
-        inputStream.reset();
-        
-        if (read <= 0) {
-            log.info("文件为空，默认使用UTF-8编码");
-            return StandardCharsets.UTF_8;
-        }
-        
-        // 统计字节特征，用于判断可能的编码
-        int asciiCount = 0;
-        int gbkCount = 0;
-        int invalidUtf8Count = 0;
-        
-        for (int i = 0; i < read; i++) {
-            int value = buffer[i] & 0xFF;
-            
-            // 统计ASCII范围内的字符
-            if (value < 128) {
-                asciiCount++;
-            } 
-            // 检测可能的GBK编码特征（双字节）
-            else if (i + 1 < read) {
-                int nextValue = buffer[i + 1] & 0xFF;
-                // GBK编码范围
-                if ((value >= 0x81 && value <= 0xFE) && 
-                    ((nextValue >= 0x40 && nextValue <= 0x7E) || (nextValue >= 0x80 && nextValue <= 0xFE))) {
-                    gbkCount++;
-                    i++; // 跳过下一个字节，因为已经判断为双字节
-                }
-            }
-            
-            // 检测无效的UTF-8序列
-            if (value >= 0x80) {
-                // 检查是否符合UTF-8编码规则
-                if (value >= 0xC0 && value <= 0xDF) {
-                    // 2字节UTF-8序列
-                    if (i + 1 >= read || (buffer[i + 1] & 0xC0) != 0x80) {
-                        invalidUtf8Count++;
-                    }
-                } else if (value >= 0xE0 && value <= 0xEF) {
-                    // 3字节UTF-8序列
-                    if (i + 2 >= read || (buffer[i + 1] & 0xC0) != 0x80 || (buffer[i + 2] & 0xC0) != 0x80) {
-                        invalidUtf8Count++;
-                    }
-                } else if (value >= 0xF0 && value <= 0xF7) {
-                    // 4字节UTF-8序列
-                    if (i + 3 >= read || (buffer[i + 1] & 0xC0) != 0x80 || 
-                        (buffer[i + 2] & 0xC0) != 0x80 || (buffer[i + 3] & 0xC0) != 0x80) {
-                        invalidUtf8Count++;
-                    }
-                } else if ((value & 0xC0) == 0x80) {
-                    // 单独出现的UTF-8后续字节
-                    invalidUtf8Count++;
-                }
-            }
+    public static Charset detectEncoding(byte[] data, int offset, int length) {
+        Charset bomCharset = detectBom(data, offset, length);
+        if (bomCharset != null) {
+            return bomCharset;
         }
-        
-        // 根据各编码特征的统计结果，判断最可能的编码
-        if (invalidUtf8Count > 0 && gbkCount > 0) {
-            log.info("检测到GBK编码特征，使用GBK编码");
-            return Charset.forName("GBK");
-        } else if (invalidUtf8Count > 0) {
-            // 尝试常见的中文编码
-            log.info("检测到中文编码特征，使用GB18030编码");
-            return Charset.forName("GB18030");
-        } else {
-            log.info("默认使用UTF-8编码");
-            return StandardCharsets.UTF_8;
+        Scanner scanner = acquireScanner();
+        try {
+            scanner.update(data, offset, length);
+            return scanner.result();
+        } finally {
+            SCANNERS.offer(scanner);
         }
     }
-    
+
     /**
      * 读取输入流内容并转换为字符串，自动检测编码
      *
@@ -159,24 +121,261 @@ public class EncodingDetector {
      * @return 转换后的字符串
      */
     public static String readInputStream(InputStream inputStream) throws IOException {
-        // 确保支持mark/reset
-        if (!inputStream.markSupported()) {
-            inputStream = new BufferedInputStream(inputStream);
-        }
-        
-        // 检测编码
-        Charset charset = detectEncoding(inputStream);
-        
-        // 读取全部内容
         byte[] bytes = inputStream.readAllBytes();
-        
-        // 如果是UTF-8带BOM，需要跳过BOM标记
-        if (charset == StandardCharsets.UTF_8 && bytes.length >= 3 && 
-            bytes[0] == (byte)0xEF && bytes[1] == (byte)0xBB && bytes[2] == (byte)0xBF) {
-            return new String(bytes, 3, bytes.length - 3, charset);
-        }
-        
-        // 转换为字符串
-        return new String(bytes, charset);
+
+        // 检测编码，解码时跳过BOM标记
+        Charset charset = detectEncoding(bytes, 0, bytes.length);
+        int bomLength = bomLength(bytes, 0, bytes.length);
+        return new String(bytes, bomLength, bytes.length - bomLength, charset);
+    }
+
+    /**
+     * 获取内容开头BOM标记的长度
+     *
+     * @return BOM长度，没有BOM时返回0
+     */
+    public static int bomLength(byte[] data, int offset, int length) {
+        if (startsWith(data, offset, length, UTF32LE_BOM) || startsWith(data, offset, length, UTF32BE_BOM)) {
+            return 4;
+        }
+        if (startsWith(data, offset, length, UTF8_BOM)) {
+            return 3;
+        }
+        if (startsWith(data, offset, length, UTF16LE_BOM) || startsWith(data, offset, length, UTF16BE_BOM)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * 从空闲池借出已重置的扫描器，池为空时新建，用完后由调用方归还
+     */
+    private static Scanner acquireScanner() {
+        Scanner scanner = SCANNERS.poll();
+        if (scanner == null) {
+            return new Scanner();
+        }
+        scanner.reset();
+        return scanner;
+    }
+
+    private static Charset detectBom(byte[] data, int length) {
+        return detectBom(data, 0, length);
+    }
+
+    /**
+     * 根据BOM判断编码
+     *
+     * @return 检测到的字符集，没有BOM时返回null
+     */
+    private static Charset detectBom(byte[] data, int offset, int length) {
+        if (startsWith(data, offset, length, UTF32LE_BOM)) {
+            return UTF32LE;
+        } else if (startsWith(data, offset, length, UTF32BE_BOM)) {
+            return UTF32BE;
+        } else if (startsWith(data, offset, length, UTF8_BOM)) {
+            return StandardCharsets.UTF_8;
+        } else if (startsWith(data, offset, length, UTF16LE_BOM)) {
+            return StandardCharsets.UTF_16LE;
+        } else if (startsWith(data, offset, length, UTF16BE_BOM)) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 尽量读满缓冲区，直到流结束
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = inputStream.read(buffer, total, buffer.length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * 流式编码扫描器，状态跨update调用保留，并附带读取输入流用的缓冲区
+     */
+    private static final class Scanner {
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        // UTF-8：当前序列还需要的后续字节数，以及下一个后续字节的合法范围
+        private int utf8Remaining;
+        private int utf8Lower;
+        private int utf8Upper;
+        private long utf8Valid;
+        private long utf8Invalid;
+
+        // GBK/GB18030：0空闲，1已读首字节，2已读首字节+数字，3已读首字节+数字+首字节
+        private int gbState;
+        private long gbValid;
+        private long gbInvalid;
+        private long gb18030Quads;
+
+        void reset() {
+            utf8Remaining = 0;
+            utf8Valid = 0;
+            utf8Invalid = 0;
+            gbState = 0;
+            gbValid = 0;
+            gbInvalid = 0;
+            gb18030Quads = 0;
+        }
+
+        void update(byte[] data, int offset, int length) {
+            int i = offset;
+            int end = offset + length;
+            while (i < end) {
+                // 两种编码都处于字符边界时，按8字节跳过纯ASCII区间
+                if (utf8Remaining == 0 && gbState == 0) {
+                    while (i + Long.BYTES <= end && ((long) LONG_VIEW.get(data, i) & NON_ASCII_MASK) == 0) {
+                        i += Long.BYTES;
+                    }
+                    if (i >= end) {
+                        break;
+                    }
+                }
+                int value = data[i++] & 0xFF;
+                scanUtf8(value);
+                scanGb(value);
+            }
+        }
+
+        Charset result() {
+            // 内容在多字节序列中间结束
+            if (utf8Remaining > 0) {
+                utf8Invalid++;
+            }
+            if (gbState != 0) {
+                gbInvalid++;
+            }
+            if (utf8Invalid == 0) {
+                return StandardCharsets.UTF_8;
+            }
+            double utf8Errors = errorRatio(utf8Valid, utf8Invalid);
+            double gbErrors = errorRatio(gbValid, gbInvalid);
+            log.debug("UTF-8合法/无效序列数: {}/{}, GBK合法/无效序列数: {}/{}",
+                    utf8Valid, utf8Invalid, gbValid, gbInvalid);
+            if (utf8Errors <= gbErrors || utf8Errors <= UTF8_TOLERANCE) {
+                // 按UTF-8解码，解码器把少量非法字节替换为替代字符
+                return StandardCharsets.UTF_8;
+            }
+            if (gb18030Quads > 0 || gbInvalid > 0) {
+                // GB18030是GBK的超集，四字节字符或GBK无法完整覆盖时使用
+                return GB18030;
+            }
+            return GBK;
+        }
+
+        /**
+         * 非法序列占全部多字节序列的比例
+         */
+        private static double errorRatio(long valid, long invalid) {
+            return (double) invalid / Math.max(1, valid + invalid);
+        }
+
+        /**
+         * 按Unicode规范的合法字节序列表校验UTF-8，排除过长编码和代理区
+         */
+        private void scanUtf8(int value) {
+            if (utf8Remaining > 0) {
+                if (value >= utf8Lower && value <= utf8Upper) {
+                    if (--utf8Remaining == 0) {
+                        utf8Valid++;
+                    }
+                    utf8Lower = 0x80;
+                    utf8Upper = 0xBF;
+                    return;
+                }
+                // 序列被打断，当前字节重新作为首字节判断
+                utf8Invalid++;
+                utf8Remaining = 0;
+            }
+            if (value < 0x80) {
+                return;
+            }
+            utf8Lower = 0x80;
+            utf8Upper = 0xBF;
+            if (value >= 0xC2 && value <= 0xDF) {
+                utf8Remaining = 1;
+            } else if (value >= 0xE0 && value <= 0xEF) {
+                utf8Remaining = 2;
+                if (value == 0xE0) {
+                    utf8Lower = 0xA0;
+                } else if (value == 0xED) {
+                    utf8Upper = 0x9F;
+                }
+            } else if (value >= 0xF0 && value <= 0xF4) {
+                utf8Remaining = 3;
+                if (value == 0xF0) {
+                    utf8Lower = 0x90;
+                } else if (value == 0xF4) {
+                    utf8Upper = 0x8F;
+                }
+            } else {
+                utf8Invalid++;
+            }
+        }
+
+        /**
+         * 校验GBK双字节（首字节0x81-0xFE，尾字节0x40-0x7E/0x80-0xFE）和GB18030四字节结构
+         */
+        private void scanGb(int value) {
+            switch (gbState) {
+                case 0:
+                    if (value >= 0x81 && value <= 0xFE) {
+                        gbState = 1;
+                    } else if (value == 0x80 || value == 0xFF) {
+                        gbInvalid++;
+                    }
+                    break;
+                case 1:
+                    if (value >= 0x30 && value <= 0x39) {
+                        gbState = 2;
+                    } else if ((value >= 0x40 && value <= 0x7E) || (value >= 0x80 && value <= 0xFE)) {
+                        gbValid++;
+                        gbState = 0;
+                    } else {
+                        gbInvalid++;
+                        gbState = 0;
+                    }
+                    break;
+                case 2:
+                    if (value >= 0x81 && value <= 0xFE) {
+                        gbState = 3;
+                    } else {
+                        gbInvalid++;
+                        gbState = 0;
+                    }
+                    break;
+                default:
+                    if (value >= 0x30 && value <= 0x39) {
+                        gbValid++;
+                        gb18030Quads++;
+                    } else {
+                        gbInvalid++;
+                    }
+                    gbState = 0;
+                    break;
+            }
+        }
     }
-}
\ No newline at end of file
+}
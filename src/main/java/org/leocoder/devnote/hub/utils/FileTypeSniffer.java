@@ -0,0 +1,223 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.leocoder.devnote.hub.enums.FileTypeEnum;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 基于文件头魔数的文件类型识别工具类
+ * <p>
+ * 只查看流开头的少量字节，通过mark/reset（或PushbackInputStream回退）保证不消费数据，
+ * 识别不出的类型返回UNKNOWN，由调用方回退到扩展名判断。
+ */
+public class FileTypeSniffer {
+
+    /**
+     * 最多查看的字节数，足以覆盖OOXML压缩包开头的几个条目
+     */
+    public static final int SNIFF_LIMIT = 4096;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87A = ascii("GIF87a");
+    private static final byte[] GIF89A = ascii("GIF89a");
+    private static final byte[] RIFF = ascii("RIFF");
+    private static final byte[] WEBP = ascii("WEBP");
+    private static final byte[] AVI = ascii("AVI ");
+    private static final byte[] PDF = ascii("%PDF-");
+    private static final byte[] FTYP = ascii("ftyp");
+    private static final byte[] EBML = {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3};
+    private static final byte[] WEBM_DOCTYPE = ascii("webm");
+    private static final byte[] ZIP_LOCAL_HEADER = {'P', 'K', 0x03, 0x04};
+
+    // EBML头中DocType出现的范围
+    private static final int EBML_HEADER_SCAN = 64;
+
+    private FileTypeSniffer() {
+    }
+
+    /**
+     * 识别输入流的文件类型，读取后回退，不消费流中的数据
+     *
+     * @param in 输入流，必须支持mark/reset或为PushbackInputStream（回退缓冲不小于SNIFF_LIMIT）
+     * @return 识别出的文件类型，无法识别时返回UNKNOWN
+     */
+    public static FileTypeEnum sniff(InputStream in) throws IOException {
+        byte[] head = new byte[SNIFF_LIMIT];
+        int length;
+        if (in instanceof PushbackInputStream) {
+            length = readHead(in, head);
+            if (length > 0) {
+                ((PushbackInputStream) in).unread(head, 0, length);
+            }
+        } else if (in.markSupported()) {
+            in.mark(SNIFF_LIMIT);
+            length = readHead(in, head);
+            in.reset();
+        } else {
+            throw new IllegalArgumentException("输入流不支持回退: " + in.getClass().getName());
+        }
+        return sniff(head, length);
+    }
+
+    /**
+     * 识别字节数组开头的文件类型
+     *
+     * @param head   文件开头的字节
+     * @param length 有效字节数
+     * @return 识别出的文件类型，无法识别时返回UNKNOWN
+     */
+    public static FileTypeEnum sniff(byte[] head, int length) {
+        if (startsWith(head, length, 0, JPEG)) {
+            return FileTypeEnum.JPG;
+        }
+        if (startsWith(head, length, 0, PNG)) {
+            return FileTypeEnum.PNG;
+        }
+        if (startsWith(head, length, 0, GIF87A) || startsWith(head, length, 0, GIF89A)) {
+            return FileTypeEnum.GIF;
+        }
+        if (startsWith(head, length, 0, RIFF)) {
+            if (startsWith(head, length, 8, WEBP)) {
+                return FileTypeEnum.WEBP;
+            }
+            if (startsWith(head, length, 8, AVI)) {
+                return FileTypeEnum.AVI;
+            }
+            return FileTypeEnum.UNKNOWN;
+        }
+        if (startsWith(head, length, 0, PDF)) {
+            return FileTypeEnum.PDF;
+        }
+        if (startsWith(head, length, 4, FTYP) && length >= 12) {
+            return sniffIsoMedia(new String(head, 8, 4, StandardCharsets.ISO_8859_1));
+        }
+        if (startsWith(head, length, 0, EBML)) {
+            return indexOf(head, Math.min(length, EBML_HEADER_SCAN), WEBM_DOCTYPE) >= 0
+                    ? FileTypeEnum.WEBM : FileTypeEnum.MKV;
+        }
+        if (startsWith(head, length, 0, ZIP_LOCAL_HEADER)) {
+            return sniffOfficeOpenXml(head, length);
+        }
+        return FileTypeEnum.UNKNOWN;
+    }
+
+    /**
+     * 根据ISO媒体文件（ftyp盒）的主品牌区分HEIC/MOV/MP4等
+     */
+    private static FileTypeEnum sniffIsoMedia(String brand) {
+        switch (brand) {
+            case "heic":
+            case "heix":
+            case "hevc":
+            case "hevx":
+            case "heim":
+            case "heis":
+            case "mif1":
+            case "msf1":
+                return FileTypeEnum.HEIC;
+            case "qt  ":
+                return FileTypeEnum.MOV;
+            case "M4V ":
+            case "M4VH":
+            case "M4VP":
+                return FileTypeEnum.M4V;
+            case "avif":
+            case "avis":
+                return FileTypeEnum.UNKNOWN;
+            default:
+                return brand.startsWith("3g") ? FileTypeEnum._3GP : FileTypeEnum.MP4;
+        }
+    }
+
+    /**
+     * 遍历ZIP本地文件头中的条目名，根据word/、xl/、ppt/目录区分OOXML文档
+     */
+    private static FileTypeEnum sniffOfficeOpenXml(byte[] head, int length) {
+        int pos = 0;
+        while (startsWith(head, length, pos, ZIP_LOCAL_HEADER) && pos + 30 <= length) {
+            int flags = readUInt16(head, pos + 6);
+            long compressedSize = readUInt32(head, pos + 18);
+            int nameLength = readUInt16(head, pos + 26);
+            int extraLength = readUInt16(head, pos + 28);
+            int nameStart = pos + 30;
+            if (nameStart + nameLength > length) {
+                break;
+            }
+            String name = new String(head, nameStart, nameLength, StandardCharsets.UTF_8);
+            if (name.startsWith("word/")) {
+                return FileTypeEnum.DOCX;
+            }
+            if (name.startsWith("xl/")) {
+                return FileTypeEnum.XLSX;
+            }
+            if (name.startsWith("ppt/")) {
+                return FileTypeEnum.PPTX;
+            }
+            // 使用数据描述符的条目在头中不记录压缩后大小，无法继续定位下一个条目
+            if ((flags & 0x08) != 0) {
+                break;
+            }
+            long next = (long) nameStart + nameLength + extraLength + compressedSize;
+            if (next >= length) {
+                break;
+            }
+            pos = (int) next;
+        }
+        return FileTypeEnum.UNKNOWN;
+    }
+
+    /**
+     * 尽量读满缓冲区，直到流结束
+     */
+    private static int readHead(InputStream in, byte[] head) throws IOException {
+        int total = 0;
+        while (total < head.length) {
+            int n = in.read(head, total, head.length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private static boolean startsWith(byte[] data, int length, int offset, byte[] prefix) {
+        if (offset + prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, int length, byte[] target) {
+        for (int i = 0; i + target.length <= length; i++) {
+            if (startsWith(data, length, i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int readUInt16(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long readUInt32(byte[] data, int offset) {
+        return readUInt16(data, offset) | (long) readUInt16(data, offset + 2) << 16;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,71 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.apache.commons.io.input.ProxyInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-16
+ * @description : 统计读取字节数并限制最大长度的输入流
+ * <p>
+ * 用于大小未知的流式上传：读取超过上限时立即抛出异常中断上传，而不是静默截断。
+ */
+public class LimitedInputStream extends ProxyInputStream {
+
+    /**
+     * 允许读取的最大字节数，小于0表示不限制
+     */
+    private final long limit;
+
+    /**
+     * 已读取的字节数
+     */
+    private long count;
+
+    /**
+     * mark时的已读取字节数，reset后恢复，避免回退重读的部分被重复统计
+     */
+    private long markedCount;
+
+    /**
+     * 构造函数
+     * @param in    源输入流
+     * @param limit 允许读取的最大字节数，小于0表示不限制
+     */
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    /**
+     * 获取已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        super.mark(readLimit);
+        markedCount = count;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        count = markedCount;
+    }
+
+    @Override
+    protected void afterRead(int n) throws IOException {
+        if (n > 0) {
+            count += n;
+            if (limit >= 0 && count > limit) {
+                throw new IOException("内容大小超出限制: " + limit + " 字节");
+            }
+        }
+    }
+}
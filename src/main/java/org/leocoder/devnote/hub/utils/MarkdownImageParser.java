@@ -0,0 +1,320 @@
+package org.leocoder.devnote.hub.utils;
+
+import lombok.Getter;
+import org.leocoder.devnote.hub.enums.MarkdownImageTypeEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-16
+ * @description : Markdown图片引用单遍扫描解析器
+ * <p>
+ * 一次线性扫描找出文档中所有的 ![alt](dest) 图片引用，并按Base64、外部URL、Image-NNN截图三类归类，
+ * 替代原先三个正则依次全文扫描、三次整体拷贝的处理方式。与原正则一致，图片引用不跨行。
+ */
+public class MarkdownImageParser {
+
+    // 图片引用起始标记
+    private static final String IMAGE_PREFIX = "![";
+
+    // Base64内嵌图片前缀
+    private static final String DATA_IMAGE_PREFIX = "data:image/";
+
+    // Base64数据分隔标记
+    private static final String BASE64_MARKER = ";base64,";
+
+    // 外部URL图片允许的扩展名，与原URL_IMAGE_PATTERN保持一致
+    private static final String[] URL_IMAGE_EXTENSIONS = {"png", "jpg", "jpeg", "gif", "webp", "bmp"};
+
+    // 截图图片alt前缀，形如 Image-20240202095614159
+    private static final String SPECIAL_ALT_PREFIX = "Image-";
+
+    private MarkdownImageParser() {
+    }
+
+    /**
+     * 解析整个文档中的图片引用
+     *
+     * @param content Markdown内容
+     * @return 按出现顺序排列的图片引用列表
+     */
+    public static List<ImageRef> parse(CharSequence content) {
+        return parse(content, 0, content.length());
+    }
+
+    /**
+     * 解析指定区间内的图片引用
+     *
+     * @param content Markdown内容
+     * @param from    起始位置（包含）
+     * @param to      结束位置（不包含）
+     * @return 按出现顺序排列的图片引用列表
+     */
+    public static List<ImageRef> parse(CharSequence content, int from, int to) {
+        List<ImageRef> refs = new ArrayList<>();
+        int i = from;
+        while (i < to - 1) {
+            if (content.charAt(i) != '!' || content.charAt(i + 1) != '[') {
+                i++;
+                continue;
+            }
+            ImageRef ref = parseAt(content, i, to);
+            if (ref == null) {
+                i += IMAGE_PREFIX.length();
+            } else {
+                refs.add(ref);
+                i = ref.getEnd();
+            }
+        }
+        return refs;
+    }
+
+    /**
+     * 按解析结果重写文档，只做一次拷贝
+     *
+     * @param content  原始Markdown内容
+     * @param from     起始位置（包含）
+     * @param to       结束位置（不包含）
+     * @param refs     该区间内的图片引用
+     * @param replacer 返回替换文本，返回null表示保留原始引用
+     * @param out      输出缓冲
+     */
+    public static void rewrite(CharSequence content, int from, int to, List<ImageRef> refs,
+                               Function<ImageRef, String> replacer, StringBuilder out) {
+        int last = from;
+        for (ImageRef ref : refs) {
+            out.append(content, last, ref.getStart());
+            String replacement = replacer.apply(ref);
+            if (replacement != null) {
+                out.append(replacement);
+            } else {
+                out.append(content, ref.getStart(), ref.getEnd());
+            }
+            last = ref.getEnd();
+        }
+        out.append(content, last, to);
+    }
+
+    /**
+     * 按解析结果重写整个文档
+     *
+     * @param content  原始Markdown内容
+     * @param refs     图片引用列表
+     * @param replacer 返回替换文本，返回null表示保留原始引用
+     * @return 重写后的内容
+     */
+    public static String rewrite(CharSequence content, List<ImageRef> refs, Function<ImageRef, String> replacer) {
+        StringBuilder out = new StringBuilder(content.length() + refs.size() * 64);
+        rewrite(content, 0, content.length(), refs, replacer, out);
+        return out.toString();
+    }
+
+    /**
+     * 尝试在指定位置解析一个图片引用
+     */
+    private static ImageRef parseAt(CharSequence s, int start, int to) {
+        int altStart = start + IMAGE_PREFIX.length();
+
+        // alt文本截止到同一行内第一个 "]("
+        int altEnd = -1;
+        for (int i = altStart; i < to - 1; i++) {
+            char c = s.charAt(i);
+            if (isLineTerminator(c)) {
+                return null;
+            }
+            if (c == ']' && s.charAt(i + 1) == '(') {
+                altEnd = i;
+                break;
+            }
+        }
+        if (altEnd < 0) {
+            return null;
+        }
+
+        // 目标地址截止到同一行内第一个 ")"
+        int destStart = altEnd + 2;
+        int destEnd = indexOfOnLine(s, ')', destStart, to);
+        if (destEnd < 0) {
+            return null;
+        }
+
+        if (startsWith(s, destStart, destEnd, DATA_IMAGE_PREFIX)) {
+            return parseBase64(s, start, altStart, altEnd, destStart, destEnd);
+        }
+        if (startsWith(s, destStart, destEnd, "http://") || startsWith(s, destStart, destEnd, "https://")) {
+            return parseUrl(s, start, altStart, altEnd, destStart, destEnd);
+        }
+        return null;
+    }
+
+    /**
+     * 解析 data:image/xxx;base64,... 形式的引用，只记录数据区间，不拷贝Base64内容
+     */
+    private static ImageRef parseBase64(CharSequence s, int start, int altStart, int altEnd,
+                                        int destStart, int destEnd) {
+        int typeStart = destStart + DATA_IMAGE_PREFIX.length();
+        int marker = indexOf(s, BASE64_MARKER, typeStart, destEnd);
+        if (marker < 0) {
+            return null;
+        }
+        ImageRef ref = new ImageRef(MarkdownImageTypeEnum.BASE64, start, destEnd + 1,
+                s.subSequence(altStart, altEnd).toString());
+        ref.extension = s.subSequence(typeStart, marker).toString();
+        ref.dataStart = marker + BASE64_MARKER.length();
+        ref.dataEnd = destEnd;
+        return ref;
+    }
+
+    /**
+     * 解析外部URL引用，只接受以允许的图片扩展名结尾的链接
+     */
+    private static ImageRef parseUrl(CharSequence s, int start, int altStart, int altEnd,
+                                     int destStart, int destEnd) {
+        String extension = matchExtension(s, destStart, destEnd);
+        if (extension == null) {
+            return null;
+        }
+        String altText = s.subSequence(altStart, altEnd).toString();
+        MarkdownImageTypeEnum type = isSpecialAlt(altText) ? MarkdownImageTypeEnum.SPECIAL : MarkdownImageTypeEnum.URL;
+        ImageRef ref = new ImageRef(type, start, destEnd + 1, altText);
+        ref.url = s.subSequence(destStart, destEnd).toString();
+        ref.extension = extension;
+        return ref;
+    }
+
+    /**
+     * 匹配链接末尾的图片扩展名
+     *
+     * @return 小写扩展名，不匹配时返回null
+     */
+    private static String matchExtension(CharSequence s, int from, int to) {
+        for (String extension : URL_IMAGE_EXTENSIONS) {
+            int dot = to - extension.length() - 1;
+            if (dot > from && s.charAt(dot) == '.' && regionMatchesIgnoreCase(s, dot + 1, extension)) {
+                return extension;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 判断alt文本是否为 Image-数字 形式
+     */
+    private static boolean isSpecialAlt(String altText) {
+        if (!altText.startsWith(SPECIAL_ALT_PREFIX) || altText.length() == SPECIAL_ALT_PREFIX.length()) {
+            return false;
+        }
+        for (int i = SPECIAL_ALT_PREFIX.length(); i < altText.length(); i++) {
+            if (!Character.isDigit(altText.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int indexOfOnLine(CharSequence s, char target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == target) {
+                return i;
+            }
+            if (isLineTerminator(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(CharSequence s, String target, int from, int to) {
+        int last = to - target.length();
+        for (int i = from; i <= last; i++) {
+            if (startsWith(s, i, to, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(CharSequence s, int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (s.charAt(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int from, String lowerCase) {
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (Character.toLowerCase(s.charAt(from + i)) != lowerCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 图片引用解析结果
+     */
+    @Getter
+    public static class ImageRef {
+
+        /**
+         * 图片类型
+         */
+        private final MarkdownImageTypeEnum type;
+
+        /**
+         * 引用在文档中的起始位置（包含）
+         */
+        private final int start;
+
+        /**
+         * 引用在文档中的结束位置（不包含）
+         */
+        private final int end;
+
+        /**
+         * alt文本
+         */
+        private final String altText;
+
+        /**
+         * 外部图片URL，Base64图片为null
+         */
+        private String url;
+
+        /**
+         * 图片扩展名，Base64图片为data URI中声明的类型
+         */
+        private String extension;
+
+        /**
+         * Base64数据起始位置（包含），非Base64图片为-1
+         */
+        private int dataStart = -1;
+
+        /**
+         * Base64数据结束位置（不包含），非Base64图片为-1
+         */
+        private int dataEnd = -1;
+
+        ImageRef(MarkdownImageTypeEnum type, int start, int end, String altText) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.altText = altText;
+        }
+    }
+}
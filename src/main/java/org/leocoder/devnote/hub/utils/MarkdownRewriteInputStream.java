@@ -0,0 +1,268 @@
+package org.leocoder.devnote.hub.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-16
+ * @description : 边读边重写Markdown图片引用的UTF-8输入流
+ * <p>
+ * 按固定大小的窗口从源Reader读取内容，每个窗口截断到最后一个完整行（图片引用不跨行），
+ * 交给重写器处理后编码为UTF-8输出。下游按需拉取，内存占用只与窗口大小和预读窗口数相关，与文档大小无关。
+ * 输出当前窗口前会先准备后续若干窗口，重写器可以提前启动这些窗口的图片下载，与当前窗口的等待和输出重叠。
+ * 编码器和字节缓冲区从CodecPool借用，关闭时归还；未读完就关闭时，已准备但未写出的窗口会被丢弃。
+ */
+public class MarkdownRewriteInputStream extends InputStream {
+
+    /**
+     * 窗口重写器
+     */
+    @FunctionalInterface
+    public interface ChunkRewriter {
+
+        /**
+         * 开始重写窗口内容，可在返回前启动异步处理
+         *
+         * @param content 窗口内容，以完整行结尾（最后一个窗口除外）
+         * @return 待写出的重写结果，按窗口顺序写出
+         */
+        PendingChunk prepare(String content);
+    }
+
+    /**
+     * 已开始重写、等待写出的窗口
+     */
+    @FunctionalInterface
+    public interface PendingChunk {
+
+        /**
+         * 等待重写完成并写出结果
+         *
+         * @param out 输出缓冲
+         */
+        void writeTo(StringBuilder out);
+
+        /**
+         * 窗口不会再被写出时调用，用于取消尚未开始的处理并撤销已产生的副作用，不应阻塞
+         */
+        default void discard() {
+        }
+    }
+
+    // 单个窗口的目标字符数，超长的单行会完整读入
+    private static final int WINDOW_CHARS = 64 * 1024;
+
+    // 读取缓冲区大小
+    private static final int READ_BUFFER_CHARS = 8 * 1024;
+
+    // 默认预读的窗口数
+    private static final int DEFAULT_LOOKAHEAD_WINDOWS = 2;
+
+    private final Reader reader;
+    private final ChunkRewriter rewriter;
+    private final int lookaheadWindows;
+    private final CharsetEncoder encoder;
+
+    // 已准备、等待写出的窗口，数量不超过预读窗口数 + 1
+    private final Deque<PendingChunk> prepared = new ArrayDeque<>();
+
+    private final char[] readBuffer = new char[READ_BUFFER_CHARS];
+    private final StringBuilder window = new StringBuilder(WINDOW_CHARS + READ_BUFFER_CHARS);
+    private final StringBuilder output = new StringBuilder(WINDOW_CHARS + READ_BUFFER_CHARS);
+    private final ByteBuffer bytes;
+
+    // 待编码的重写结果
+    private CharBuffer pending = CharBuffer.allocate(0);
+
+    private boolean sourceEof;
+    private boolean flushed;
+    private boolean closed;
+
+    /**
+     * 构造函数
+     * @param reader   源内容
+     * @param rewriter 窗口重写器
+     */
+    public MarkdownRewriteInputStream(Reader reader, ChunkRewriter rewriter) {
+        this(reader, rewriter, DEFAULT_LOOKAHEAD_WINDOWS);
+    }
+
+    /**
+     * 构造函数
+     * @param reader           源内容
+     * @param rewriter         窗口重写器
+     * @param lookaheadWindows 输出当前窗口时最多提前准备的窗口数，为0时不预读
+     */
+    public MarkdownRewriteInputStream(Reader reader, ChunkRewriter rewriter, int lookaheadWindows) {
+        this.reader = reader;
+        this.rewriter = rewriter;
+        this.lookaheadWindows = Math.max(0, lookaheadWindows);
+        this.encoder = CodecPool.acquireEncoder(StandardCharsets.UTF_8);
+        this.bytes = CodecPool.acquireBuffer();
+        this.bytes.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (!bytes.hasRemaining()) {
+            if (!fillBytes()) {
+                return -1;
+            }
+        }
+        return bytes.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!bytes.hasRemaining()) {
+            if (!fillBytes()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, bytes.remaining());
+        bytes.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return bytes.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } finally {
+            CodecPool.releaseEncoder(encoder);
+            CodecPool.releaseBuffer(bytes);
+            // 下游未读完（例如上传失败）时，预读的窗口不会再被写出
+            PendingChunk chunk;
+            while ((chunk = prepared.poll()) != null) {
+                chunk.discard();
+            }
+        }
+    }
+
+    /**
+     * 编码下一批输出字节
+     *
+     * @return 是否还有数据
+     */
+    private boolean fillBytes() throws IOException {
+        bytes.clear();
+        while (bytes.hasRemaining()) {
+            if (pending.hasRemaining()) {
+                CoderResult result = encoder.encode(pending, bytes, false);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (result.isOverflow()) {
+                    break;
+                }
+                continue;
+            }
+            if (!nextWindow()) {
+                if (!flushed) {
+                    encoder.encode(pending, bytes, true);
+                    encoder.flush(bytes);
+                    flushed = true;
+                }
+                break;
+            }
+        }
+        bytes.flip();
+        return bytes.hasRemaining();
+    }
+
+    /**
+     * 写出下一个窗口，写出前补足预读的窗口
+     *
+     * @return 是否还有数据
+     */
+    private boolean nextWindow() throws IOException {
+        while (prepared.size() <= lookaheadWindows) {
+            String chunk = readChunk();
+            if (chunk == null) {
+                break;
+            }
+            prepared.add(rewriter.prepare(chunk));
+        }
+        PendingChunk chunk = prepared.poll();
+        if (chunk == null) {
+            return false;
+        }
+
+        output.setLength(0);
+        chunk.writeTo(output);
+        pending = CharBuffer.wrap(output);
+        return true;
+    }
+
+    /**
+     * 从源内容读取下一个以完整行结尾的窗口
+     *
+     * @return 窗口内容，源内容已读完时返回null
+     */
+    private String readChunk() throws IOException {
+        int cut;
+        int searchFrom = 0;
+        while (true) {
+            if (sourceEof || window.length() >= WINDOW_CHARS) {
+                int newline = lastNewline(searchFrom);
+                if (newline >= 0) {
+                    cut = newline + 1;
+                    break;
+                }
+                if (sourceEof) {
+                    cut = window.length();
+                    break;
+                }
+                // 单行超过窗口大小，继续读取直到行尾，只在新读入的部分查找换行
+                searchFrom = window.length();
+            }
+            int n = reader.read(readBuffer);
+            if (n < 0) {
+                sourceEof = true;
+            } else {
+                window.append(readBuffer, 0, n);
+            }
+        }
+        if (cut == 0) {
+            return null;
+        }
+
+        String chunk = window.substring(0, cut);
+        window.delete(0, cut);
+        return chunk;
+    }
+
+    /**
+     * 从窗口末尾向前查找换行符
+     */
+    private int lastNewline(int from) {
+        for (int i = window.length() - 1; i >= from; i--) {
+            if (window.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,104 @@
+package org.leocoder.devnote.hub.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 相同Key的并发调用合并工具类
+ * <p>
+ * 同一Key同时只执行一次加载，期间到达的其他调用等待并共享同一结果（包括异常）；
+ * 加载结束后立即移除记录，之后的调用会重新加载，结果缓存由调用方自行负责。
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * 正在执行的调用
+     */
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载，相同Key的并发调用只执行一次
+     *
+     * @param key    调用Key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    public V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.call();
+            call.complete(value);
+            return value;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 异步执行加载，相同Key的并发调用只启动一次，其他调用直接得到同一个结果，不占用线程等待
+     *
+     * @param key    调用Key
+     * @param loader 启动加载，返回加载结果
+     * @return 加载结果
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return existing.copy();
+        }
+        try {
+            loader.get().whenComplete((value, e) -> {
+                calls.remove(key, call);
+                if (e != null) {
+                    call.completeExceptionally(e);
+                } else {
+                    call.complete(value);
+                }
+            });
+        } catch (Throwable e) {
+            calls.remove(key, call);
+            call.completeExceptionally(e);
+        }
+        return call.copy();
+    }
+
+    /**
+     * 当前正在执行的调用数量
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    /**
+     * 等待其他线程的调用结果，异常原样抛出
+     */
+    private V await(CompletableFuture<V> call) throws Exception {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
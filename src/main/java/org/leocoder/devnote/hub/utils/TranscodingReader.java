@@ -0,0 +1,107 @@
+package org.leocoder.devnote.hub.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 按指定字符集逐块解码字节流的Reader
+ * <p>
+ * 作为转码链路的解码端，配合按UTF-8输出的MarkdownRewriteInputStream完成任意字符集到UTF-8的流式转换。
+ * 解码器和字节缓冲区从CodecPool借用，关闭时归还；开头的BOM字符会被丢弃。
+ */
+public class TranscodingReader extends Reader {
+
+    private static final char BOM = '\uFEFF';
+
+    private final InputStream in;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+
+    private boolean eof;
+    private boolean flushed;
+    private boolean bomChecked;
+    private boolean closed;
+
+    /**
+     * 构造函数
+     * @param in      源字节流
+     * @param charset 源字符集
+     */
+    public TranscodingReader(InputStream in, Charset charset) {
+        this.in = in;
+        this.decoder = CodecPool.acquireDecoder(charset);
+        this.bytes = CodecPool.acquireBuffer();
+        this.bytes.flip();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off) {
+            if (flushed) {
+                return -1;
+            }
+            CoderResult result = decoder.decode(bytes, out, eof);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isUnderflow()) {
+                if (eof) {
+                    flushed = !decoder.flush(out).isOverflow();
+                } else {
+                    fillBytes();
+                }
+            }
+        }
+
+        int n = out.position() - off;
+        if (!bomChecked) {
+            bomChecked = true;
+            if (cbuf[off] == BOM) {
+                System.arraycopy(cbuf, off + 1, cbuf, off, n - 1);
+                return n == 1 ? read(cbuf, off, len) : n - 1;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            in.close();
+        } finally {
+            CodecPool.releaseDecoder(decoder);
+            CodecPool.releaseBuffer(bytes);
+        }
+    }
+
+    /**
+     * 从源流补充待解码字节，保留上次未解码完的残余字节
+     */
+    private void fillBytes() throws IOException {
+        bytes.compact();
+        int n = in.read(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        if (n < 0) {
+            eof = true;
+        } else {
+            bytes.position(bytes.position() + n);
+        }
+        bytes.flip();
+    }
+}
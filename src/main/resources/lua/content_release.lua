@@ -0,0 +1,18 @@
+-- 释放持有人的一次内容寻址对象引用
+-- KEYS[1]: 引用键（持有人标识 -> 持有的引用数）
+-- ARGV[1]: 持有人标识
+-- 返回剩余的引用持有人数，为0时删除引用键，调用方可以删除对象；持有人没有引用时返回-1，不做修改
+local held = tonumber(redis.call('HGET', KEYS[1], ARGV[1]))
+if held == nil or held <= 0 then
+    return -1
+end
+if held == 1 then
+    redis.call('HDEL', KEYS[1], ARGV[1])
+else
+    redis.call('HINCRBY', KEYS[1], ARGV[1], -1)
+end
+local remaining = redis.call('HLEN', KEYS[1])
+if remaining == 0 then
+    redis.call('DEL', KEYS[1])
+end
+return remaining
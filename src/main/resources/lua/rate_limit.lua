@@ -0,0 +1,39 @@
+-- 令牌桶限流
+-- KEYS[1]: 令牌桶键
+-- ARGV[1]: 桶容量（允许的突发请求数）
+-- ARGV[2]: 每毫秒补充的令牌数
+-- 返回0表示获取成功，否则返回需要等待的毫秒数
+-- 当前时间取Redis服务端时间，避免各节点时钟偏差导致令牌多补或少补；
+-- Redis 5之前脚本调用TIME后再写入需开启效果复制，新版本中该调用为空操作
+pcall(redis.replicate_commands)
+
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+
+-- 按距上次请求的时间补充令牌，不超过桶容量
+if now > ts then
+    tokens = math.min(capacity, tokens + (now - ts) * rate)
+    ts = now
+end
+
+local wait = 0
+if tokens >= 1 then
+    tokens = tokens - 1
+else
+    wait = math.ceil((1 - tokens) / rate)
+end
+
+redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts))
+-- 桶补满后即可删除，保留到补满所需时间
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 1000)
+return wait
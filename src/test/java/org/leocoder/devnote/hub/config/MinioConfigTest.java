@@ -0,0 +1,57 @@
+package org.leocoder.devnote.hub.config;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.enums.FileCategoryEnum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 扩展名白名单测试
+ */
+class MinioConfigTest {
+
+    @Test
+    void parsesConfiguredListsOnce() {
+        MinioConfig config = new MinioConfig();
+        config.setAllowedImageExtensions(" JPG, png,,webp ");
+        config.setAllowedDocumentExtensions("pdf,md");
+
+        assertThat(config.getAllowedImageExtensionList()).containsExactly("jpg", "png", "webp");
+        assertThat(config.getAllowedDocumentExtensionList()).containsExactly("pdf", "md");
+        assertThat(config.getAllowedVideoExtensionList()).contains("mp4", "mkv");
+        assertThat(config.getAllAllowedExtensions()).startsWith("jpg", "png", "webp", "pdf", "md");
+    }
+
+    @Test
+    void matchesCaseInsensitivelyPerCategory() {
+        MinioConfig config = new MinioConfig();
+        config.setAllowedImageExtensions("jpg,png");
+        config.setAllowedDocumentExtensions("pdf");
+
+        assertThat(config.isAllowedExtension("PNG")).isTrue();
+        assertThat(config.isAllowedExtension("mov")).isTrue();
+        assertThat(config.isAllowedExtension("exe")).isFalse();
+        assertThat(config.isAllowedExtension(null)).isFalse();
+        assertThat(config.isAllowedExtension(FileCategoryEnum.IMAGE, "Jpg")).isTrue();
+        assertThat(config.isAllowedExtension(FileCategoryEnum.IMAGE, "pdf")).isFalse();
+        assertThat(config.isAllowedExtension(FileCategoryEnum.DOCUMENT, "pdf")).isTrue();
+    }
+
+    @Test
+    void rebindReplacesRulesAndListsAreImmutable() {
+        MinioConfig config = new MinioConfig();
+        config.setAllowedImageExtensions("jpg");
+        assertThat(config.isAllowedExtension("gif")).isFalse();
+
+        config.setAllowedImageExtensions("jpg,gif");
+
+        assertThat(config.isAllowedExtension("gif")).isTrue();
+        assertThat(config.isAllowedExtension(FileCategoryEnum.DOCUMENT, "gif")).isFalse();
+        assertThatThrownBy(() -> config.getAllowedImageExtensionList().add("exe"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package org.leocoder.devnote.hub.config;
+
+import io.minio.MinioAsyncClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : MinIO分片上传客户端测试，使用MockWebServer模拟S3接口
+ */
+class MinioMultipartClientTest {
+
+    private MockWebServer server;
+    private MinioMultipartClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new MinioMultipartClient(MinioAsyncClient.builder()
+                .endpoint(server.url("/").toString())
+                .credentials("access", "secret")
+                .region("us-east-1")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void uploadPartSendsRawBytes() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"part-etag\""));
+        byte[] data = "part-content".getBytes(StandardCharsets.UTF_8);
+
+        String etag = client.uploadPart("bucket", "videos/a.mp4", "upload-1", 3,
+                new ByteArrayInputStream(data), data.length);
+
+        assertThat(etag).contains("part-etag");
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getMethod()).isEqualTo("PUT");
+        assertThat(request.getRequestUrl().encodedPath()).isEqualTo("/bucket/videos/a.mp4");
+        assertThat(request.getRequestUrl().queryParameter("uploadId")).isEqualTo("upload-1");
+        assertThat(request.getRequestUrl().queryParameter("partNumber")).isEqualTo("3");
+        assertThat(request.getBody().readByteArray()).isEqualTo(data);
+    }
+
+    @Test
+    void uploadPartRejectsShortStream() {
+        byte[] data = new byte[10];
+
+        assertThatThrownBy(() -> client.uploadPart("bucket", "videos/a.mp4", "upload-1", 1,
+                new ByteArrayInputStream(data), 20))
+                .isInstanceOf(IOException.class);
+        assertThat(server.getRequestCount()).isZero();
+    }
+}
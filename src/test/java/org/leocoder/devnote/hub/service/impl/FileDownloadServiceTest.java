@@ -0,0 +1,167 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import io.minio.StatObjectResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 下载代理的Range和条件请求测试
+ */
+class FileDownloadServiceTest {
+
+    private static final String OBJECT = "videos/2025/05/18/demo.mp4";
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+    private static final ZonedDateTime LAST_MODIFIED = ZonedDateTime.of(2025, 5, 18, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    private FileService fileService;
+    private FileDownloadService downloadService;
+
+    @BeforeEach
+    void setUp() {
+        fileService = mock(FileService.class);
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.etag()).thenReturn("\"abc123\"");
+        when(stat.lastModified()).thenReturn(LAST_MODIFIED);
+        when(stat.size()).thenReturn((long) CONTENT.length);
+        when(stat.contentType()).thenReturn("video/mp4");
+        when(stat.userMetadata()).thenReturn(Collections.emptyMap());
+        when(fileService.statFile(OBJECT)).thenReturn(stat);
+        when(fileService.getFileStream(anyString(), anyLong(), any())).thenAnswer(invocation -> {
+            int offset = (int) (long) invocation.getArgument(1);
+            Long length = invocation.getArgument(2);
+            int end = length == null ? CONTENT.length : offset + length.intValue();
+            return new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, offset, end));
+        });
+
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.setDownloadBufferSize(4);
+        downloadService = new FileDownloadService(fileService, minioConfig);
+    }
+
+    @Test
+    void fullContentWithoutRange() throws Exception {
+        MockHttpServletResponse response = download(new MockHttpServletRequest("GET", "/"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"abc123\"");
+        verify(fileService).getFileStream(eq(OBJECT), eq(0L), isNull());
+    }
+
+    @Test
+    void closedRangeReadsOnlyThatSlice() throws Exception {
+        MockHttpServletResponse response = download(withRange("bytes=2-5"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        verify(fileService).getFileStream(OBJECT, 2L, 4L);
+    }
+
+    @Test
+    void openAndSuffixRanges() throws Exception {
+        MockHttpServletResponse open = download(withRange("bytes=15-"));
+        assertThat(open.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 15-19/20");
+        assertThat(open.getContentAsString()).isEqualTo("fghij");
+
+        MockHttpServletResponse suffix = download(withRange("bytes=-3"));
+        assertThat(suffix.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 17-19/20");
+        assertThat(suffix.getContentAsString()).isEqualTo("hij");
+
+        MockHttpServletResponse clipped = download(withRange("bytes=10-100"));
+        assertThat(clipped.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-19/20");
+    }
+
+    @Test
+    void unsatisfiableRangeReturns416() throws Exception {
+        MockHttpServletResponse response = download(withRange("bytes=20-"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+        verify(fileService, never()).getFileStream(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void multipleOrMalformedRangesFallBackToFullContent() throws Exception {
+        assertThat(download(withRange("bytes=0-1,4-5")).getStatus()).isEqualTo(200);
+        assertThat(download(withRange("items=0-1")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void ifRangeMustMatchStrongEtag() throws Exception {
+        MockHttpServletRequest matched = withRange("bytes=0-1");
+        matched.addHeader(HttpHeaders.IF_RANGE, "\"abc123\"");
+        assertThat(download(matched).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest stale = withRange("bytes=0-1");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+        assertThat(download(stale).getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest weak = withRange("bytes=0-1");
+        weak.addHeader(HttpHeaders.IF_RANGE, "W/\"abc123\"");
+        assertThat(download(weak).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void conditionalRequestReturns304() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc123\"");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void headRequestWritesHeadersOnly() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentLengthLong()).isEqualTo(10);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        verify(fileService, never()).getFileStream(anyString(), anyLong(), any());
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloadService.download(OBJECT, false, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest withRange(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, range);
+        return request;
+    }
+}
@@ -0,0 +1,74 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.domain.vo.file.MarkdownImageVO;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.autoconfigure.metrics.PropertiesMeterFilter;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 监控指标测试，按application.yml中的management.metrics配置注册指标
+ */
+class FileMetricsServiceTest {
+
+    private SimpleMeterRegistry registry;
+    private FileMetricsService fileMetricsService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load("application.yml", new ClassPathResource("application.yml"));
+        sources.forEach(source -> environment.getPropertySources().addLast(source));
+        MetricsProperties properties = Binder.get(environment)
+                .bind("management.metrics", MetricsProperties.class)
+                .get();
+
+        registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(new PropertiesMeterFilter(properties));
+        fileMetricsService = new FileMetricsService(registry);
+    }
+
+    @Test
+    void recordUploadRegistersSizeSummary() {
+        fileMetricsService.recordUpload(fileMetricsService.start(), "images/a.png",
+                FileMetricsService.OUTCOME_SUCCESS, 2048);
+
+        DistributionSummary summary = registry.get("devnote.file.upload.size").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2048);
+        assertThat(summary.getId().getTag("application")).isEqualTo("coder-devnotehub");
+    }
+
+    @Test
+    void recordImageRegistersSizeSummary() {
+        MarkdownImageVO image = MarkdownImageVO.builder()
+                .type("url")
+                .size(4096L)
+                .downloadMs(10L)
+                .uploadMs(20L)
+                .cacheHit(false)
+                .success(true)
+                .build();
+        fileMetricsService.recordImage(image, 30_000_000L);
+
+        assertThat(registry.get("devnote.markdown.image.size").summary().totalAmount()).isEqualTo(4096);
+        assertThat(registry.get("devnote.markdown.image.download").timer().count()).isEqualTo(1);
+        assertThat(registry.get("devnote.markdown.image.upload").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,100 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.config.MarkdownConfig;
+import org.leocoder.devnote.hub.service.impl.ImageFetchService.FetchResult;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 图片下载总耗时上限测试
+ */
+class ImageFetchServiceTest {
+
+    private static final long TOTAL_TIMEOUT = 500;
+
+    private MockWebServer server;
+    private ThreadPoolTaskScheduler scheduler;
+    private ImageFetchService imageFetchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        MarkdownConfig markdownConfig = new MarkdownConfig();
+        markdownConfig.setImageTotalTimeout(TOTAL_TIMEOUT);
+        markdownConfig.setImageReadTimeout(30000);
+
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+
+        imageFetchService = new ImageFetchService(markdownConfig, scheduler);
+        imageFetchService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+        try {
+            server.shutdown();
+        } catch (IOException e) {
+            // 被放弃的慢响应仍在按节流发送，关闭时等待超时不影响测试结果
+        }
+    }
+
+    @Test
+    void readsBodyWithinDeadline() throws Exception {
+        server.enqueue(new MockResponse().setBody("image").setHeader("ETag", "\"v1\""));
+
+        FetchResult<String> result = imageFetchService.fetch(url(), null, null,
+                (body, contentType, contentLength) -> new String(body.readAllBytes()));
+
+        assertThat(result.getValue()).isEqualTo("image");
+        assertThat(result.getEtag()).isEqualTo("\"v1\"");
+    }
+
+    @Test
+    void stalledHeadersFailAtDeadline() {
+        server.enqueue(new MockResponse().setBody("image").setHeadersDelay(10, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> imageFetchService.fetch(url(), null, null,
+                (body, contentType, contentLength) -> body.readAllBytes()))
+                .isInstanceOf(HttpTimeoutException.class);
+        assertThat(elapsedMillis(start)).isLessThan(5000);
+    }
+
+    @Test
+    void stalledBodyIsClosedAtDeadline() {
+        // 先返回少量字节，之后每10秒才发送一个字节
+        server.enqueue(new MockResponse().setBody("0123456789").throttleBody(1, 10, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> imageFetchService.fetch(url(), null, null,
+                (body, contentType, contentLength) -> body.readAllBytes()))
+                .isInstanceOf(HttpTimeoutException.class);
+        assertThat(elapsedMillis(start)).isLessThan(5000);
+    }
+
+    private String url() {
+        return server.url("/image.png").toString();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,123 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.config.ImageConfig;
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 图片预览参数档位和原图标记测试
+ */
+class ImagePreviewServiceTest {
+
+    private MinioConfig minioConfig;
+    private ImageConfig imageConfig;
+    private MinioClient minioClient;
+    private ImagePreviewService imagePreviewService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioConfig = new MinioConfig();
+        minioConfig.setBucketName("devnote");
+        minioConfig.setMaxSize(1024L * 1024);
+        imageConfig = new ImageConfig();
+        imageConfig.setPreviewSizes(Arrays.asList(480, 160, 960));
+        imageConfig.setPreviewQualities(Arrays.asList(85, 60));
+
+        minioClient = mock(MinioClient.class);
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> new GetObjectResponse(
+                Headers.of("Content-Type", "image/jpeg"), "devnote", "", "preview",
+                new ByteArrayInputStream(new byte[]{1, 2, 3})));
+
+        imagePreviewService = new ImagePreviewService(minioClient, minioConfig, imageConfig,
+                mock(ImageProcessService.class));
+        imagePreviewService.init();
+    }
+
+    @Test
+    void snapRoundsUpToNearestLevel() {
+        List<Integer> levels = Arrays.asList(160, 480, 960);
+
+        assertThat(ImagePreviewService.snap(levels, 1)).isEqualTo(160);
+        assertThat(ImagePreviewService.snap(levels, 160)).isEqualTo(160);
+        assertThat(ImagePreviewService.snap(levels, 161)).isEqualTo(480);
+        assertThat(ImagePreviewService.snap(levels, 4096)).isEqualTo(960);
+    }
+
+    @Test
+    void nearbyParametersShareOnePreview() throws Exception {
+        imagePreviewService.getPreview("2025/05/18/images/a.jpg", 300, null, 61);
+        imagePreviewService.getPreview("2025/05/18/images/a.jpg", 470, 9999, 80);
+
+        ArgumentCaptor<GetObjectArgs> args = ArgumentCaptor.forClass(GetObjectArgs.class);
+        verify(minioClient, times(1)).getObject(args.capture());
+        assertThat(args.getValue().object()).isEqualTo("derivatives/2025/05/18/images/a.jpg/480x960q85.jpg");
+    }
+
+    @Test
+    void unprocessedImageIsMarkedInStorage() throws Exception {
+        String objectName = "2025/05/18/images/a.gif";
+        String previewName = "derivatives/2025/05/18/images/a.gif/480x960q85.gif";
+        byte[] gif = {'G', 'I', 'F', '8', '9', 'a', 1, 0, 1, 0};
+        AtomicBoolean marked = new AtomicBoolean();
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> {
+            String name = invocation.<GetObjectArgs>getArgument(0).object();
+            if (name.equals(objectName)) {
+                return new GetObjectResponse(Headers.of("Content-Type", "image/gif"), "devnote", "", name,
+                        new ByteArrayInputStream(gif));
+            }
+            if (!marked.get()) {
+                throw new ErrorResponseException(new ErrorResponse("NoSuchKey", "not found", "devnote", name,
+                        null, null, null), null, null);
+            }
+            return new GetObjectResponse(Headers.of("Content-Type", "image/gif", "x-amz-meta-preview-source",
+                    "original"), "devnote", "", name, new ByteArrayInputStream(new byte[0]));
+        });
+        when(minioClient.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            marked.set(true);
+            return null;
+        });
+
+        // GIF不做缩放，返回原图并在预览图位置写入空的原图标记
+        assertThat(imagePreviewService.getPreview(objectName, 300, null, null).getData()).isEqualTo(gif);
+        ArgumentCaptor<PutObjectArgs> put = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient).putObject(put.capture());
+        assertThat(put.getValue().object()).isEqualTo(previewName);
+        assertThat(put.getValue().objectSize()).isZero();
+        assertThat(put.getValue().userMetadata().get("x-amz-meta-preview-source")).containsExactly("original");
+
+        // 其他节点命中标记后直接返回原图，不再尝试处理
+        ImageProcessService otherProcessService = mock(ImageProcessService.class);
+        ImagePreviewService otherNode = new ImagePreviewService(minioClient, minioConfig, imageConfig,
+                otherProcessService);
+        otherNode.init();
+        assertThat(otherNode.getPreview(objectName, 300, null, null).getData()).isEqualTo(gif);
+        verify(otherProcessService, never()).render(any(), anyInt(), anyInt(), anyInt());
+        verify(minioClient, times(1)).putObject(any(PutObjectArgs.class));
+    }
+}
@@ -0,0 +1,143 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.config.ImageConfig;
+import org.leocoder.devnote.hub.service.impl.ImageProcessService.ProcessedImage;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 图片处理超时取消测试
+ */
+class ImageProcessServiceTest {
+
+    private ImageConfig imageConfig;
+    private ThreadPoolTaskExecutor executor;
+    private ImageProcessService imageProcessService;
+    private byte[] png;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageConfig = new ImageConfig();
+        imageConfig.setProcessTimeout(200);
+        imageConfig.setMemoryBudget(64L * 1024 * 1024);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+
+        imageProcessService = new ImageProcessService(imageConfig, executor);
+        imageProcessService.init();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png", out);
+        png = out.toByteArray();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void rendersWithinTimeout() {
+        ProcessedImage image = imageProcessService.render(() -> new ByteArrayInputStream(png), 200, 200, 80);
+
+        assertThat(image).isNotNull();
+        assertThat(image.getWidth()).isEqualTo(200);
+        assertThat(image.getHeight()).isEqualTo(150);
+    }
+
+    @Test
+    void stalledProcessingIsCancelledAndReleasesMemory() throws Exception {
+        long budget = imageProcessService.getAvailableMemory();
+        AtomicInteger opens = new AtomicInteger();
+        // 读取图片头正常返回，处理线程中的解码读取停滞，直到被中断
+        InputStreamSource stalled = () -> opens.incrementAndGet() == 1 ? new ByteArrayInputStream(png) : new StalledInputStream();
+
+        long start = System.nanoTime();
+        ProcessedImage image = imageProcessService.render(stalled, 200, 200, 80);
+
+        assertThat(image).isNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (imageProcessService.getAvailableMemory() < budget && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(imageProcessService.getAvailableMemory()).isEqualTo(budget);
+    }
+
+    @Test
+    void queuedTaskTimingOutReleasesMemory() throws Exception {
+        long budget = imageProcessService.getAvailableMemory();
+        // 占住唯一的处理线程，后续图片只能在队列中等待
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> blocker = executor.submit(() -> {
+            started.countDown();
+            busy.await();
+            return null;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicInteger opens = new AtomicInteger();
+        try {
+            ProcessedImage image = imageProcessService.render(() -> {
+                opens.incrementAndGet();
+                return new ByteArrayInputStream(png);
+            }, 200, 200, 80);
+
+            assertThat(image).isNull();
+            assertThat(imageProcessService.getAvailableMemory()).isEqualTo(budget);
+        } finally {
+            busy.countDown();
+        }
+        blocker.get(5, TimeUnit.SECONDS);
+        // 处理线程空闲后，被取消的任务不会再执行解码，也不会重复释放内存预算
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        assertThat(opens.get()).isEqualTo(1);
+        assertThat(imageProcessService.getAvailableMemory()).isEqualTo(budget);
+    }
+
+    /**
+     * 读取时一直阻塞，被中断后后续读取均立即失败（ImageIO探测格式时会吞掉异常继续尝试下一个解码器）
+     */
+    private static class StalledInputStream extends InputStream {
+
+        private volatile boolean interrupted;
+
+        @Override
+        public int read() throws IOException {
+            if (interrupted) {
+                throw new InterruptedIOException("interrupted");
+            }
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted = true;
+                throw new InterruptedIOException("interrupted");
+            }
+            return -1;
+        }
+    }
+}
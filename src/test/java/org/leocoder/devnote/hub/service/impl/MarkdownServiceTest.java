@@ -0,0 +1,260 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.spring.SaTokenContextForSpring;
+import cn.hutool.crypto.digest.DigestUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectArgs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.config.MarkdownConfig;
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.leocoder.devnote.hub.exception.BusinessException;
+import org.leocoder.devnote.hub.service.impl.ImageFetchService.BodyConsumer;
+import org.leocoder.devnote.hub.service.impl.ImageFetchService.FetchResult;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 多篇文档复用同一外部图片、流式上传失败时的引用登记测试
+ */
+class MarkdownServiceTest {
+
+    private static final String IMAGE_URL = "https://cdn.example.com/img/a.png";
+    private static final byte[] PNG = Arrays.copyOf(
+            new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 64);
+
+    private final Map<String, Map<String, Long>> refs = new ConcurrentHashMap<>();
+
+    private final CountDownLatch fetchStarted = new CountDownLatch(1);
+    private final CountDownLatch fetchReleased = new CountDownLatch(1);
+
+    private MinioClient minioClient;
+    private ImageFetchService imageFetchService;
+    private MinioFileServiceImpl fileService;
+    private MarkdownService markdownService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.setEndpoint("http://localhost:9000");
+        minioConfig.setBucketName("devnote");
+        minioConfig.setMaxSize(1024L * 1024);
+        minioConfig.setAllowedImageExtensions("png");
+        minioConfig.setAllowedDocumentExtensions("md");
+        minioConfig.setContentAddressed(true);
+
+        minioClient = mock(MinioClient.class);
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+
+        // 内存中模拟引用键和content_release.lua，来源缓存只使用本地缓存
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(stringRedisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.increment(anyString(), any(), anyLong())).thenAnswer(invocation -> {
+            synchronized (refs) {
+                return refs.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                        .merge(invocation.getArgument(1), invocation.getArgument(2), Long::sum);
+            }
+        });
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            String owner = invocation.getArgument(2);
+            synchronized (refs) {
+                Map<String, Long> holders = refs.get(key);
+                Long held = holders == null ? null : holders.get(owner);
+                if (held == null || held <= 0) {
+                    return -1L;
+                }
+                if (held == 1) {
+                    holders.remove(owner);
+                } else {
+                    holders.put(owner, held - 1);
+                }
+                if (holders.isEmpty()) {
+                    refs.remove(key);
+                }
+                return (long) holders.size();
+            }
+        });
+
+        FileMetricsService fileMetricsService = new FileMetricsService(new SimpleMeterRegistry());
+        fileService = new MinioFileServiceImpl(minioClient, minioConfig, mock(MinioAsyncClient.class),
+                mock(ImageProcessService.class), mock(ImagePreviewService.class), fileMetricsService,
+                stringRedisTemplate);
+        fileService.init();
+
+        MarkdownConfig markdownConfig = new MarkdownConfig();
+        ImageSourceCacheService imageSourceCacheService = new ImageSourceCacheService(markdownConfig, stringRedisTemplate);
+        imageSourceCacheService.init();
+
+        imageFetchService = mock(ImageFetchService.class);
+        when(imageFetchService.fetch(eq(IMAGE_URL), any(), any(), any())).thenAnswer(invocation -> {
+            fetchStarted.countDown();
+            assertThat(fetchReleased.await(10, TimeUnit.SECONDS)).isTrue();
+            BodyConsumer<?> consumer = invocation.getArgument(3);
+            return new FetchResult<>(false, consumer.accept(new ByteArrayInputStream(PNG), "image/png", PNG.length),
+                    "\"v1\"", null);
+        });
+
+        markdownService = new MarkdownService(fileService, imageFetchService, imageSourceCacheService,
+                markdownConfig, fileMetricsService, Runnable::run);
+        markdownService.init();
+
+        SaManager.setSaTokenContext(new SaTokenContextForSpring());
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void sourceCacheHitHoldsItsOwnReference() throws Exception {
+        fetchReleased.countDown();
+        importNote("# A\n![a](" + IMAGE_URL + ")\n", "ip:10.0.0.1");
+        importNote("# B\n![b](" + IMAGE_URL + ")\n", "ip:10.0.0.2");
+
+        // 第二篇命中来源缓存，不重新下载上传，但登记了自己的引用
+        verify(imageFetchService, times(1)).fetch(eq(IMAGE_URL), any(), any(), any());
+        assertThat(refs.get(imageRefKey())).containsEntry("ip:10.0.0.1", 1L).containsEntry("ip:10.0.0.2", 1L);
+
+        // 删除第一篇的图片后，第二篇引用的对象仍然保留
+        asClient("10.0.0.1");
+        assertThat(fileService.deleteFile(imageObjectName())).isTrue();
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+
+        asClient("10.0.0.2");
+        assertThat(fileService.deleteFile(imageObjectName())).isTrue();
+        verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    void coalescedImportHoldsItsOwnReference() throws Exception {
+        // 第一篇的下载进行中时导入第二篇，第二篇合并到同一次下载
+        CompletableFuture<Void> first = CompletableFuture.runAsync(
+                () -> importNote("# A\n![a](" + IMAGE_URL + ")\n", "ip:10.0.0.1"));
+        assertThat(fetchStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread second = new Thread(() -> importNote("# B\n![b](" + IMAGE_URL + ")\n", "ip:10.0.0.2"));
+        second.start();
+        // 第二篇提交图片后阻塞等待下载结果
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (second.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        fetchReleased.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.join(10_000);
+
+        verify(imageFetchService, times(1)).fetch(eq(IMAGE_URL), any(), any(), any());
+        assertThat(refs.get(imageRefKey())).containsEntry("ip:10.0.0.1", 1L).containsEntry("ip:10.0.0.2", 1L);
+
+        // 删除第一篇的图片后，第二篇引用的对象仍然保留
+        asClient("10.0.0.1");
+        assertThat(fileService.deleteFile(imageObjectName())).isTrue();
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    void failedStreamingUploadReleasesLookaheadImages() throws Exception {
+        fetchReleased.countDown();
+        byte[] base64Png = PNG.clone();
+        base64Png[PNG.length - 1] = 1;
+
+        // 每行100字符：Base64图片位于第二个窗口，外部图片位于第三个窗口，读取第四个窗口时源内容读取失败
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 80 * 1024) {
+            content.append("x".repeat(99)).append('\n');
+        }
+        content.append("![b64](data:image/png;base64,").append(Base64.getEncoder().encodeToString(base64Png))
+                .append(")\n");
+        while (content.length() < 150 * 1024) {
+            content.append("y".repeat(99)).append('\n');
+        }
+        content.append("![url](").append(IMAGE_URL).append(")\n");
+        while (content.length() < 300 * 1024) {
+            content.append("z".repeat(99)).append('\n');
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        int failAt = 245 * 1024;
+        int[] opens = {0};
+        InputStreamSource source = () -> opens[0]++ == 0 ? new ByteArrayInputStream(bytes)
+                : new SequenceInputStream(new ByteArrayInputStream(bytes, 0, failAt), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                });
+
+        assertThatThrownBy(() -> markdownService.processAndUploadMarkdown(source, "note.md", bytes.length,
+                "ip:10.0.0.1", MarkdownService.ProgressListener.NONE)).isInstanceOf(BusinessException.class);
+
+        // 预读窗口中的图片已经上传，文档上传失败后撤销本文档的引用，对象随最后一个引用删除
+        verify(imageFetchService, times(1)).fetch(eq(IMAGE_URL), any(), any(), any());
+        assertThat(refs).isEmpty();
+        verify(minioClient, times(2)).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    private void importNote(String content, String owner) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        markdownService.processAndUploadMarkdown(new ByteArrayResource(bytes), "note.md", bytes.length, owner,
+                MarkdownService.ProgressListener.NONE);
+    }
+
+    private void asClient(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private String imageObjectName() {
+        String hash = DigestUtil.sha256Hex(PNG);
+        return "content/images/" + hash.substring(0, 2) + "/" + hash + ".png";
+    }
+
+    private String imageRefKey() {
+        return "devnote:file:content:refs:" + DigestUtil.sha256Hex(PNG);
+    }
+}
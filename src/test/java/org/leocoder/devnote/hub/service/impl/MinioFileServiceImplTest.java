@@ -0,0 +1,269 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.spring.SaTokenContextForSpring;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.config.MinioConfig;
+import org.leocoder.devnote.hub.domain.vo.file.FileUploadVO;
+import org.leocoder.devnote.hub.exception.BusinessException;
+import org.leocoder.devnote.hub.exception.ErrorCode;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 内容寻址存储的引用计数和本地索引测试
+ */
+class MinioFileServiceImplTest {
+
+    private static final byte[] PNG = Arrays.copyOf(
+            new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 64);
+
+    private final Map<String, Map<String, Long>> refs = new HashMap<>();
+
+    private MinioConfig minioConfig;
+    private MinioClient minioClient;
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private MinioFileServiceImpl fileService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        minioConfig = new MinioConfig();
+        minioConfig.setEndpoint("http://localhost:9000");
+        minioConfig.setBucketName("devnote");
+        minioConfig.setMaxSize(1024L * 1024);
+        minioConfig.setAllowedImageExtensions("png,jpg");
+        minioConfig.setAllowedDocumentExtensions("pdf");
+        minioConfig.setContentAddressed(true);
+
+        minioClient = mock(MinioClient.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // 内存中模拟引用键和content_release.lua
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(stringRedisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.increment(anyString(), any(), anyLong())).thenAnswer(invocation -> refs
+                .computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                .merge(invocation.getArgument(1), invocation.getArgument(2), Long::sum));
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            String owner = invocation.getArgument(2);
+            Map<String, Long> holders = refs.get(key);
+            Long held = holders == null ? null : holders.get(owner);
+            if (held == null || held <= 0) {
+                return -1L;
+            }
+            if (held == 1) {
+                holders.remove(owner);
+            } else {
+                holders.put(owner, held - 1);
+            }
+            if (holders.isEmpty()) {
+                refs.remove(key);
+            }
+            return (long) holders.size();
+        });
+
+        fileService = new MinioFileServiceImpl(minioClient, minioConfig, mock(MinioAsyncClient.class),
+                mock(ImageProcessService.class), mock(ImagePreviewService.class),
+                new FileMetricsService(new SimpleMeterRegistry()), stringRedisTemplate);
+        fileService.init();
+
+        // 未登录时预签名凭证绑定到客户端IP
+        SaManager.setSaTokenContext(new SaTokenContextForSpring());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void presignedCompleteRejectsUnissuedObject() throws Exception {
+        String objectName = "images/2025/05/18/forged.png";
+
+        assertThatThrownBy(() -> fileService.completePresignedUpload(objectName, null))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo(ErrorCode.NOT_FOUND_ERROR.getCode());
+
+        verify(minioClient, never()).statObject(any(StatObjectArgs.class));
+    }
+
+    @Test
+    void presignedCompleteRejectsObjectIssuedToAnotherUser() throws Exception {
+        String objectName = "images/2025/05/18/other.png";
+        when(valueOperations.get("devnote:file:presigned:" + objectName)).thenReturn("ip:10.0.0.2");
+
+        assertThatThrownBy(() -> fileService.completePresignedUpload(objectName, null))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo(ErrorCode.NO_AUTH_ERROR.getCode());
+
+        verify(minioClient, never()).statObject(any(StatObjectArgs.class));
+    }
+
+    @Test
+    void sharedContentIsKeptWhileReferenced() throws Exception {
+        String objectName = upload().getObjectName();
+        switchClient("10.0.0.2");
+        upload();
+
+        assertThat(fileService.deleteFile(objectName)).isTrue();
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+
+        switchClient("10.0.0.1");
+        assertThat(fileService.deleteFile(objectName)).isTrue();
+        verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+        assertThat(refs).isEmpty();
+    }
+
+    @Test
+    void repeatedDeleteOnlyReleasesHeldReferences() throws Exception {
+        String objectName = upload().getObjectName();
+        switchClient("10.0.0.2");
+        upload();
+
+        switchClient("10.0.0.1");
+        assertThat(fileService.deleteFile(objectName)).isTrue();
+        assertThat(fileService.deleteFile(objectName)).isFalse();
+        assertThat(fileService.deleteFile(objectName)).isFalse();
+
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+        assertThat(refs.get(refKey(objectName))).containsOnlyKeys("ip:10.0.0.2");
+    }
+
+    @Test
+    void foreignDeleteIsIgnored() throws Exception {
+        String objectName = upload().getObjectName();
+
+        switchClient("10.0.0.2");
+        assertThat(fileService.deleteFile(objectName)).isFalse();
+        assertThat(fileService.deleteFiles(List.of(objectName))).containsEntry(objectName, false);
+
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+        verify(minioClient, never()).removeObjects(any());
+        assertThat(refs.get(refKey(objectName))).containsEntry("ip:10.0.0.1", 1L);
+    }
+
+    @Test
+    void batchDeleteSkipsReferencedContent() throws Exception {
+        String objectName = upload().getObjectName();
+        switchClient("10.0.0.2");
+        upload();
+
+        assertThat(fileService.deleteFiles(List.of(objectName))).containsEntry(objectName, true);
+
+        verify(minioClient, never()).removeObjects(any());
+    }
+
+    @Test
+    void acquireReferenceCountsForOwner() throws Exception {
+        String objectName = upload().getObjectName();
+
+        assertThat(fileService.acquireReference(objectName, "user:42")).isTrue();
+
+        assertThat(refs.get(refKey(objectName))).containsEntry("user:42", 1L).containsEntry("ip:10.0.0.1", 1L);
+        // 复用已上传对象不再访问MinIO
+        verify(minioClient, never()).statObject(any(StatObjectArgs.class));
+    }
+
+    @Test
+    void acquireReferenceOnDeletedObjectIsRolledBack() throws Exception {
+        String objectName = contentObjectName();
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenThrow(notFound(objectName));
+
+        assertThat(fileService.acquireReference(objectName, "user:42")).isFalse();
+
+        assertThat(refs).isEmpty();
+    }
+
+    @Test
+    void indexHitSkipsStorageRoundTrip() throws Exception {
+        FileUploadVO first = upload();
+        FileUploadVO second = upload();
+
+        assertThat(second.getObjectName()).isEqualTo(first.getObjectName());
+        verify(minioClient, times(1)).putObject(any(PutObjectArgs.class));
+        verify(minioClient, never()).statObject(any(StatObjectArgs.class));
+        assertThat(refs.get(refKey(first.getObjectName()))).containsEntry("ip:10.0.0.1", 2L);
+    }
+
+    @Test
+    void indexHitOnDeletedObjectUploadsAgain() throws Exception {
+        // 存在性缓存过期后，索引命中也要确认对象仍存在，其他节点删除对象后重新上传
+        minioConfig.setExistCacheSize(0);
+        fileService.init();
+        FileUploadVO first = upload();
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenThrow(notFound(first.getObjectName()));
+
+        upload();
+
+        verify(minioClient, times(2)).putObject(any(PutObjectArgs.class));
+        assertThat(refs.get(refKey(first.getObjectName()))).containsEntry("ip:10.0.0.1", 2L);
+    }
+
+    private void switchClient(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private ErrorResponseException notFound(String objectName) {
+        return new ErrorResponseException(
+                new ErrorResponse("NoSuchKey", "", "devnote", objectName, "", "", ""), null, "");
+    }
+
+    private String refKey(String objectName) {
+        String hash = objectName.substring(objectName.lastIndexOf('/') + 1, objectName.lastIndexOf('.'));
+        return "devnote:file:content:refs:" + hash;
+    }
+
+    private FileUploadVO upload() {
+        return fileService.uploadFile(new ByteArrayInputStream(PNG), "a.png", "image/png", PNG.length);
+    }
+
+    private String contentObjectName() {
+        return "content/images/ab/ab" + "0".repeat(62) + ".png";
+    }
+}
@@ -0,0 +1,132 @@
+package org.leocoder.devnote.hub.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.annotation.RateLimit;
+import org.leocoder.devnote.hub.config.RateLimitConfig;
+import org.leocoder.devnote.hub.config.RateLimitConfig.Rule;
+import org.leocoder.devnote.hub.controller.FileController;
+import org.leocoder.devnote.hub.controller.FilePreviewController;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 令牌桶限流脚本调用测试
+ */
+class RateLimitServiceTest {
+
+    private RateLimitConfig rateLimitConfig;
+    private RateLimitService rateLimitService;
+    private final List<Object[]> executions = new ArrayList<>();
+    private Object result;
+
+    @BeforeEach
+    void setUp() {
+        Rule rule = new Rule();
+        rule.setCapacity(5);
+        rule.setRefillPerSecond(2);
+        rateLimitConfig = new RateLimitConfig();
+        rateLimitConfig.getRules().put("upload", rule);
+
+        // 记录脚本调用参数，按预设结果返回
+        StringRedisTemplate template = mock(StringRedisTemplate.class, invocation -> {
+            if (!"execute".equals(invocation.getMethod().getName())) {
+                return null;
+            }
+            executions.add(invocation.getArguments());
+            if (result instanceof RuntimeException) {
+                throw (RuntimeException) result;
+            }
+            return result;
+        });
+        rateLimitService = new RateLimitService(rateLimitConfig, template);
+        rateLimitService.init();
+    }
+
+    @Test
+    void scriptReadsServerTimeWithEffectsReplication() {
+        RedisScript<?> script = executeOnce();
+        String source = script.getScriptAsString();
+
+        assertThat(source).contains("redis.call('TIME')");
+        assertThat(source).contains("redis.replicate_commands");
+        assertThat(source.indexOf("redis.replicate_commands")).isLessThan(source.indexOf("redis.call('TIME')"));
+        assertThat(source).doesNotContain("ARGV[3]");
+    }
+
+    @Test
+    void passesCapacityAndRatePerMillisecondOnly() {
+        result = 0L;
+
+        assertThat(rateLimitService.tryAcquireToken("upload", "user:1")).isZero();
+
+        Object[] args = executions.get(0);
+        assertThat(args[1]).isEqualTo(Collections.singletonList("devnote:rate-limit:upload:user:1"));
+        assertThat(Arrays.asList(args).subList(2, args.length)).containsExactly("5", "0.002");
+    }
+
+    @Test
+    void returnsWaitFromScript() {
+        result = 350L;
+
+        assertThat(rateLimitService.tryAcquireToken("upload", "ip:10.0.0.1")).isEqualTo(350L);
+    }
+
+    @Test
+    void redisFailureFollowsFailOpen() {
+        result = new RedisConnectionFailureException("down");
+
+        assertThat(rateLimitService.tryAcquireToken("upload", "user:1")).isZero();
+        rateLimitConfig.setFailOpen(false);
+        assertThat(rateLimitService.tryAcquireToken("upload", "user:1")).isEqualTo(1000L);
+    }
+
+    @Test
+    void unknownRuleSkipsRedis() {
+        assertThat(rateLimitService.tryAcquireToken("missing", "user:1")).isZero();
+        assertThat(executions).isEmpty();
+    }
+
+    @Test
+    void everyAnnotatedEndpointHasConfiguredRule() {
+        // 未配置的规则名会直接放行，注解和配置需要保持一致
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties properties = yaml.getObject();
+
+        List<String> ruleNames = Stream.of(FileController.class, FilePreviewController.class)
+                .flatMap(type -> Arrays.stream(type.getDeclaredMethods()))
+                .map(method -> method.getAnnotation(RateLimit.class))
+                .filter(Objects::nonNull)
+                .map(RateLimit::value)
+                .distinct()
+                .toList();
+
+        assertThat(ruleNames).contains("multipart-init", "presigned");
+        assertThat(ruleNames).allSatisfy(name ->
+                assertThat(properties).containsKey("rate-limit.rules." + name + ".capacity"));
+    }
+
+    private RedisScript<?> executeOnce() {
+        result = 0L;
+        rateLimitService.tryAcquireToken("upload", "user:1");
+        return (RedisScript<?>) executions.get(0)[0];
+    }
+}
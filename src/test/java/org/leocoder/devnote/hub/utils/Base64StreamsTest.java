@@ -0,0 +1,70 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Base64流式解码和解码长度计算测试
+ */
+class Base64StreamsTest {
+
+    private static final String PREFIX = "![a](data:image/png;base64,";
+    private static final String SUFFIX = ") tail";
+
+    @Test
+    void decodedLengthMatchesDecoderForEveryRemainder() throws IOException {
+        Random random = new Random(42);
+        for (int size = 0; size <= 64; size++) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            for (Base64.Encoder encoder : new Base64.Encoder[]{
+                    Base64.getEncoder(),
+                    Base64.getEncoder().withoutPadding(),
+                    Base64.getMimeEncoder(16, "\r\n".getBytes())}) {
+                String content = PREFIX + encoder.encodeToString(data) + SUFFIX;
+                int start = PREFIX.length();
+                int end = content.length() - SUFFIX.length();
+
+                assertThat(Base64Streams.decodedLength(content, start, end)).as("size %d", size).isEqualTo(size);
+                assertThat(decode(content, start, end)).as("size %d", size).isEqualTo(data);
+            }
+        }
+    }
+
+    @Test
+    void ignoresWhitespaceAndNonAsciiCharacters() throws IOException {
+        byte[] data = "hello, base64 stream".getBytes();
+        String encoded = Base64.getEncoder().encodeToString(data);
+        String content = encoded.substring(0, 8) + "\n 中 \t" + encoded.substring(8);
+
+        assertThat(Base64Streams.decodedLength(content, 0, content.length())).isEqualTo(data.length);
+        assertThat(decode(content, 0, content.length())).isEqualTo(data);
+    }
+
+    @Test
+    void rejectsImpossibleLength() {
+        assertThatThrownBy(() -> Base64Streams.decodedLength("QUJDR", 0, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stopsAtPadding() {
+        assertThat(Base64Streams.decodedLength("QQ==QUJD", 0, 8)).isEqualTo(1);
+    }
+
+    private static byte[] decode(CharSequence content, int start, int end) throws IOException {
+        try (InputStream in = Base64Streams.newDecodingStream(content, start, end)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 并发限制器和异步合并调用测试
+ */
+class ConcurrencyLimiterTest {
+
+    private ExecutorService pool;
+    private AtomicInteger dispatched;
+    private Executor executor;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newCachedThreadPool();
+        dispatched = new AtomicInteger();
+        executor = task -> {
+            dispatched.incrementAndGet();
+            pool.execute(task);
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void backloggedKeyDoesNotStarveOtherKeys() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 2);
+        CountDownLatch slowRelease = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> slow = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            slow.add(limiter.submit("slow.example.com", () -> {
+                slowRelease.await();
+                return "slow";
+            }, executor));
+        }
+        // 慢域名只取得2个许可，其余任务在自己的队列中等待，没有提交给执行器
+        assertThat(dispatched.get()).isEqualTo(2);
+
+        CompletableFuture<String> fast = limiter.submit("fast.example.com", () -> "fast", executor);
+        assertThat(fast.get(5, TimeUnit.SECONDS)).isEqualTo("fast");
+
+        slowRelease.countDown();
+        CompletableFuture.allOf(slow.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertThat(limiter.availablePermits()).isEqualTo(4);
+    }
+
+    @Test
+    void respectsGlobalAndPerKeyLimits() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(3, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger[] keyRunning = {new AtomicInteger(), new AtomicInteger()};
+        AtomicInteger maxKeyRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int k = i % 2;
+            futures.add(limiter.submit("host" + k, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                maxKeyRunning.accumulateAndGet(keyRunning[k].incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                keyRunning[k].decrementAndGet();
+                running.decrementAndGet();
+                return k;
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+        assertThat(maxKeyRunning.get()).isLessThanOrEqualTo(2);
+        assertThat(dispatched.get()).isEqualTo(40);
+        assertThat(limiter.availablePermits()).isEqualTo(3);
+    }
+
+    @Test
+    void failedTaskReleasesPermits() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1);
+
+        CompletableFuture<String> failed = limiter.submit("host", () -> {
+            throw new IOException("boom");
+        }, executor);
+
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThat(limiter.submit("host", () -> "next", executor).join()).isEqualTo("next");
+    }
+
+    @Test
+    void singleFlightFollowersShareResultWithoutLoading() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> load = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> leader = flight.executeAsync("url", () -> {
+            loads.incrementAndGet();
+            return load;
+        });
+        CompletableFuture<String> follower = flight.executeAsync("url", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertThat(flight.inFlight()).isEqualTo(1);
+
+        load.complete("uploaded");
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("uploaded");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("uploaded");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.inFlight()).isZero();
+    }
+}
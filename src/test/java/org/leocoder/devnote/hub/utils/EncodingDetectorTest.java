@@ -0,0 +1,116 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 编码检测测试
+ */
+class EncodingDetectorTest {
+
+    private static final Charset GBK = Charset.forName("GBK");
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    private static final String TEXT = "# 程序员笔记\n\n这是一段用于编码检测的中文内容，包含标点符号：“引号”、《书名号》。\n"
+            + "![示例图片](https://example.com/a.png)\n";
+
+    @Test
+    void detectsAsciiAndUtf8() throws IOException {
+        assertThat(detect("plain ascii\n".getBytes(StandardCharsets.US_ASCII))).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(detect(TEXT.getBytes(StandardCharsets.UTF_8))).isEqualTo(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void detectsGbk() throws IOException {
+        assertThat(detect(TEXT.repeat(20).getBytes(GBK))).isEqualTo(GBK);
+    }
+
+    @Test
+    void detectsGb18030FourByteCharacters() throws IOException {
+        assertThat(detect((TEXT + "表情😀").getBytes(GB18030))).isEqualTo(GB18030);
+    }
+
+    @Test
+    void utf8WithRareBadBytesStaysUtf8() throws IOException {
+        byte[] utf8 = TEXT.repeat(50).getBytes(StandardCharsets.UTF_8);
+        utf8[100] = (byte) 0xFF;
+        utf8[utf8.length / 2] = (byte) 0xC0;
+
+        assertThat(detect(utf8)).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(EncodingDetector.readInputStream(new ByteArrayInputStream(utf8)))
+                .contains("�")
+                .contains("程序员笔记");
+    }
+
+    @Test
+    void multibyteSequenceAcrossBufferBoundary() throws IOException {
+        // 64K缓冲区边界落在三字节字符中间
+        byte[] padding = new byte[64 * 1024 - 1];
+        Arrays.fill(padding, (byte) 'a');
+        byte[] chinese = "中文".getBytes(StandardCharsets.UTF_8);
+        byte[] data = Arrays.copyOf(padding, padding.length + chinese.length);
+        System.arraycopy(chinese, 0, data, padding.length, chinese.length);
+
+        assertThat(EncodingDetector.detectEncoding(new OneByteAtATimeInputStream(data)))
+                .isEqualTo(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void detectsBom() throws IOException {
+        byte[] utf16 = ("﻿" + TEXT).getBytes(StandardCharsets.UTF_16LE);
+        assertThat(detect(utf16)).isEqualTo(StandardCharsets.UTF_16LE);
+        assertThat(EncodingDetector.bomLength(utf16, 0, utf16.length)).isEqualTo(2);
+        assertThat(EncodingDetector.readInputStream(new ByteArrayInputStream(utf16))).isEqualTo(TEXT);
+    }
+
+    /**
+     * 同时校验流式和字节数组两种检测方式的结果一致
+     */
+    private static Charset detect(byte[] data) throws IOException {
+        Charset fromArray = EncodingDetector.detectEncoding(data, 0, data.length);
+        Charset fromStream = EncodingDetector.detectEncoding(new ByteArrayInputStream(data));
+        assertThat(fromStream).isEqualTo(fromArray);
+        return fromArray;
+    }
+
+    /**
+     * 每次最多返回一个字节的输入流，使扫描在任意位置被切分
+     */
+    private static class OneByteAtATimeInputStream extends InputStream {
+
+        private final byte[] data;
+        private int position;
+
+        OneByteAtATimeInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= data.length) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            b[off] = data[position++];
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.enums.FileTypeEnum;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 文件头类型识别测试
+ */
+class FileTypeSnifferTest {
+
+    @Test
+    void sniffsImages() {
+        assertThat(sniff(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0})).isEqualTo(FileTypeEnum.JPG);
+        assertThat(sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})).isEqualTo(FileTypeEnum.PNG);
+        assertThat(sniff(ascii("GIF89a..."))).isEqualTo(FileTypeEnum.GIF);
+        assertThat(sniff(ascii("RIFF\0\0\0\0WEBPVP8 "))).isEqualTo(FileTypeEnum.WEBP);
+        assertThat(sniff(ascii("\0\0\0\u0018ftypheic"))).isEqualTo(FileTypeEnum.HEIC);
+        assertThat(sniff(ascii("\0\0\0\u0018ftypavif"))).isEqualTo(FileTypeEnum.UNKNOWN);
+    }
+
+    @Test
+    void sniffsVideosAndPdf() {
+        assertThat(sniff(ascii("RIFF\0\0\0\0AVI LIST"))).isEqualTo(FileTypeEnum.AVI);
+        assertThat(sniff(ascii("\0\0\0 ftypisom"))).isEqualTo(FileTypeEnum.MP4);
+        assertThat(sniff(ascii("\0\0\0\u0014ftypqt  "))).isEqualTo(FileTypeEnum.MOV);
+        assertThat(sniff(ascii("\0\0\0\u0014ftyp3gp5"))).isEqualTo(FileTypeEnum._3GP);
+        assertThat(sniff(ascii("\u001AEß£\u0093B\u0082\u0084webm"))).isEqualTo(FileTypeEnum.WEBM);
+        assertThat(sniff(ascii("\u001AEß£\u0093B\u0082\u0088matroska"))).isEqualTo(FileTypeEnum.MKV);
+        assertThat(sniff(ascii("%PDF-1.7\n"))).isEqualTo(FileTypeEnum.PDF);
+    }
+
+    @Test
+    void sniffsOfficeOpenXmlByEntryNames() throws IOException {
+        byte[] docx = zip(true, "[Content_Types].xml", "_rels/.rels", "word/document.xml");
+        byte[] xlsx = zip(false, "xl/workbook.xml");
+        byte[] pptx = zip(true, "[Content_Types].xml", "ppt/presentation.xml");
+        byte[] plainZip = zip(true, "readme.txt");
+
+        assertThat(sniff(docx)).isEqualTo(FileTypeEnum.DOCX);
+        assertThat(sniff(xlsx)).isEqualTo(FileTypeEnum.XLSX);
+        assertThat(sniff(pptx)).isEqualTo(FileTypeEnum.PPTX);
+        assertThat(sniff(plainZip)).isEqualTo(FileTypeEnum.UNKNOWN);
+    }
+
+    @Test
+    void unknownAndTruncatedContent() {
+        assertThat(sniff("# markdown".getBytes(StandardCharsets.UTF_8))).isEqualTo(FileTypeEnum.UNKNOWN);
+        assertThat(sniff(new byte[]{(byte) 0x89, 'P', 'N'})).isEqualTo(FileTypeEnum.UNKNOWN);
+        assertThat(sniff(new byte[0])).isEqualTo(FileTypeEnum.UNKNOWN);
+    }
+
+    @Test
+    void streamIsNotConsumed() throws IOException {
+        byte[] pdf = Arrays.copyOf(ascii("%PDF-1.4\n"), FileTypeSniffer.SNIFF_LIMIT * 2);
+
+        InputStream buffered = new BufferedInputStream(new ByteArrayInputStream(pdf));
+        assertThat(FileTypeSniffer.sniff(buffered)).isEqualTo(FileTypeEnum.PDF);
+        assertThat(buffered.readAllBytes()).isEqualTo(pdf);
+
+        PushbackInputStream pushback = new PushbackInputStream(new ByteArrayInputStream(pdf), FileTypeSniffer.SNIFF_LIMIT);
+        assertThat(FileTypeSniffer.sniff(pushback)).isEqualTo(FileTypeEnum.PDF);
+        assertThat(pushback.readAllBytes()).isEqualTo(pdf);
+    }
+
+    @Test
+    void rejectsStreamsThatCannotRewind() {
+        InputStream plain = new FilterInputStream(new ByteArrayInputStream(new byte[8])) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+
+        assertThatThrownBy(() -> FileTypeSniffer.sniff(plain)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static FileTypeEnum sniff(byte[] head) {
+        return FileTypeSniffer.sniff(head, head.length);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 生成ZIP内容，stored为true时条目不压缩且在本地文件头中记录大小
+     */
+    private static byte[] zip(boolean stored, String... names) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String name : names) {
+                byte[] data = ("<xml>" + name + "</xml>").getBytes(StandardCharsets.UTF_8);
+                ZipEntry entry = new ZipEntry(name);
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCompressedSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(data);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,110 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.enums.MarkdownImageTypeEnum;
+import org.leocoder.devnote.hub.utils.MarkdownImageParser.ImageRef;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : Markdown图片引用解析测试
+ */
+class MarkdownImageParserTest {
+
+    @Test
+    void parsesExternalUrlImages() {
+        String content = "前言 ![架构图](https://cdn.example.com/a/b.PNG) 后记";
+
+        List<ImageRef> refs = MarkdownImageParser.parse(content);
+
+        assertThat(refs).hasSize(1);
+        ImageRef ref = refs.get(0);
+        assertThat(ref.getType()).isEqualTo(MarkdownImageTypeEnum.URL);
+        assertThat(ref.getAltText()).isEqualTo("架构图");
+        assertThat(ref.getUrl()).isEqualTo("https://cdn.example.com/a/b.PNG");
+        assertThat(ref.getExtension()).isEqualTo("png");
+        assertThat(content.substring(ref.getStart(), ref.getEnd()))
+                .isEqualTo("![架构图](https://cdn.example.com/a/b.PNG)");
+    }
+
+    @Test
+    void altTextMayContainNestedBrackets() {
+        String content = "![see [note] here](http://example.com/x.jpg)\n![[x]](http://example.com/y.gif)";
+
+        List<ImageRef> refs = MarkdownImageParser.parse(content);
+
+        assertThat(refs).extracting(ImageRef::getAltText).containsExactly("see [note] here", "[x]");
+        assertThat(refs).extracting(ImageRef::getExtension).containsExactly("jpg", "gif");
+    }
+
+    @Test
+    void referencesDoNotSpanLines() {
+        String content = "![broken\nalt](https://example.com/a.png)\n"
+                + "![alt](https://example.com/\nb.png)\n"
+                + "![ok](https://example.com/c.png)";
+
+        List<ImageRef> refs = MarkdownImageParser.parse(content);
+
+        assertThat(refs).extracting(ImageRef::getUrl).containsExactly("https://example.com/c.png");
+    }
+
+    @Test
+    void parsesDataUriWithoutCopyingPayload() {
+        String payload = "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==";
+        String content = "x ![dot](data:image/png;base64," + payload + ") y";
+
+        List<ImageRef> refs = MarkdownImageParser.parse(content);
+
+        assertThat(refs).hasSize(1);
+        ImageRef ref = refs.get(0);
+        assertThat(ref.getType()).isEqualTo(MarkdownImageTypeEnum.BASE64);
+        assertThat(ref.getExtension()).isEqualTo("png");
+        assertThat(ref.getUrl()).isNull();
+        assertThat(content.substring(ref.getDataStart(), ref.getDataEnd())).isEqualTo(payload);
+        assertThat(content.charAt(ref.getEnd())).isEqualTo(' ');
+    }
+
+    @Test
+    void classifiesScreenshotsAndIgnoresOtherLinks() {
+        String content = "![Image-20240202095614159](https://example.com/s.webp) "
+                + "![Image-abc](https://example.com/t.bmp) "
+                + "![doc](https://example.com/file.pdf) "
+                + "![local](images/a.png) "
+                + "![bad](data:image/png,notbase64)";
+
+        List<ImageRef> refs = MarkdownImageParser.parse(content);
+
+        assertThat(refs).extracting(ImageRef::getType)
+                .containsExactly(MarkdownImageTypeEnum.SPECIAL, MarkdownImageTypeEnum.URL);
+    }
+
+    @Test
+    void rewritesOnlyTheRequestedRange() {
+        String content = "a ![1](https://e.com/1.png) b ![2](https://e.com/2.png) c";
+        int from = content.indexOf(" b");
+        List<ImageRef> refs = MarkdownImageParser.parse(content, from, content.length());
+        StringBuilder out = new StringBuilder();
+
+        MarkdownImageParser.rewrite(content, from, content.length(), refs,
+                ref -> "![" + ref.getAltText() + "](https://minio/new.png)", out);
+
+        assertThat(refs).hasSize(1);
+        assertThat(out).hasToString(" b ![2](https://minio/new.png) c");
+    }
+
+    @Test
+    void nullReplacementKeepsOriginalReference() {
+        String content = "![1](https://e.com/1.png)![2](https://e.com/2.jpeg)";
+        List<ImageRef> refs = MarkdownImageParser.parse(content);
+
+        String rewritten = MarkdownImageParser.rewrite(content, refs,
+                ref -> ref.getUrl().endsWith("1.png") ? "[done]" : null);
+
+        assertThat(rewritten).isEqualTo("[done]![2](https://e.com/2.jpeg)");
+    }
+}
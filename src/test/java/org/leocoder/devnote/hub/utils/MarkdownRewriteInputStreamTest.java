@@ -0,0 +1,121 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 流式重写输入流的窗口边界和预读测试
+ */
+class MarkdownRewriteInputStreamTest {
+
+    private static final int WINDOW_CHARS = 64 * 1024;
+
+    @Test
+    void windowsEndOnLineBoundaries() throws IOException {
+        String line = "第" + "x".repeat(98) + "行\n";
+        String content = line.repeat(3 * WINDOW_CHARS / line.length() + 7);
+        List<String> chunks = new ArrayList<>();
+
+        String output = readAll(new MarkdownRewriteInputStream(new StringReader(content), chunk -> {
+            chunks.add(chunk);
+            return out -> out.append(chunk);
+        }));
+
+        assertThat(output).isEqualTo(content);
+        assertThat(chunks).hasSizeGreaterThan(3);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk).endsWith("\n"));
+    }
+
+    @Test
+    void lineLongerThanWindowIsKeptWhole() throws IOException {
+        String longLine = "![a](data:image/png;base64," + "A".repeat(WINDOW_CHARS * 2) + ")\n";
+        String content = "head\n" + longLine + "tail";
+        List<String> chunks = new ArrayList<>();
+
+        String output = readAll(new MarkdownRewriteInputStream(new StringReader(content), chunk -> {
+            chunks.add(chunk);
+            return out -> out.append(chunk);
+        }));
+
+        assertThat(output).isEqualTo(content);
+        assertThat(chunks).anySatisfy(chunk -> assertThat(chunk).contains(longLine));
+        assertThat(chunks.get(chunks.size() - 1)).endsWith("tail");
+    }
+
+    @Test
+    void preparesLookaheadWindowsBeforeWriting() throws IOException {
+        String line = "y".repeat(99) + "\n";
+        String content = line.repeat(6 * WINDOW_CHARS / line.length());
+        List<String> events = new ArrayList<>();
+        int[] prepared = {0};
+
+        readAll(new MarkdownRewriteInputStream(new StringReader(content), chunk -> {
+            int index = prepared[0]++;
+            events.add("prepare" + index);
+            return out -> {
+                events.add("write" + index);
+                out.append(chunk);
+            };
+        }, 2));
+
+        // 写出第一个窗口前已准备了后续两个窗口，之后始终保持两个窗口的预读
+        assertThat(events.subList(0, 4)).containsExactly("prepare0", "prepare1", "prepare2", "write0");
+        assertThat(events.indexOf("prepare3")).isLessThan(events.indexOf("write1"));
+        assertThat(events).filteredOn(e -> e.startsWith("write")).hasSize(prepared[0]);
+    }
+
+    @Test
+    void closingBeforeEndDiscardsPreparedWindows() throws IOException {
+        String line = "z".repeat(99) + "\n";
+        String content = line.repeat(6 * WINDOW_CHARS / line.length());
+        List<String> events = new ArrayList<>();
+        int[] prepared = {0};
+
+        try (InputStream in = new MarkdownRewriteInputStream(new StringReader(content), chunk -> {
+            int index = prepared[0]++;
+            return new MarkdownRewriteInputStream.PendingChunk() {
+                @Override
+                public void writeTo(StringBuilder out) {
+                    events.add("write" + index);
+                    out.append(chunk);
+                }
+
+                @Override
+                public void discard() {
+                    events.add("discard" + index);
+                }
+            };
+        }, 2)) {
+            // 只读取第一个窗口的开头就关闭
+            assertThat(in.read(new byte[16])).isEqualTo(16);
+        }
+
+        // 已写出的窗口不会被丢弃，预读的两个窗口各丢弃一次
+        assertThat(events).containsExactly("write0", "discard1", "discard2");
+    }
+
+    @Test
+    void rewritesAreEncodedAsUtf8() throws IOException {
+        String output = readAll(new MarkdownRewriteInputStream(new StringReader("图片\n"),
+                chunk -> out -> out.append(chunk.replace("图片", "画像")), 0));
+
+        assertThat(output).isEqualTo("画像\n");
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.leocoder.devnote.hub.utils;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.devnote.hub.config.MarkdownConfig;
+import org.leocoder.devnote.hub.config.VirtualThreadConfig;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-05-18
+ * @description : 虚拟线程运行时探测和回退测试
+ */
+class VirtualThreadsTest {
+
+    private static final boolean JAVA_21 = Runtime.version().feature() >= 21;
+
+    @Test
+    void supportFollowsRuntimeVersion() {
+        assertThat(VirtualThreads.isSupported()).isEqualTo(JAVA_21);
+    }
+
+    @Test
+    void fallsBackToPlatformThreadsBelowJava21() {
+        assumeFalse(JAVA_21);
+        VirtualThreadConfig virtualThreadConfig = new VirtualThreadConfig();
+        virtualThreadConfig.setEnabled(true);
+
+        assertThat(virtualThreadConfig.isActive()).isFalse();
+        assertThatThrownBy(() -> VirtualThreads.newVirtualThreadPerTaskExecutor("vt-"))
+                .isInstanceOf(UnsupportedOperationException.class);
+
+        Executor executor = new MarkdownConfig().markdownImageExecutor(virtualThreadConfig);
+        assertThat(executor).isInstanceOf(ThreadPoolTaskExecutor.class);
+    }
+
+    @Test
+    void runsTasksOnNamedVirtualThreads() throws Exception {
+        assumeTrue(JAVA_21);
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor("vt-test-");
+        try {
+            Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get(5, TimeUnit.SECONDS);
+            assertThat(thread.getName()).startsWith("vt-test-");
+            assertThat((boolean) Thread.class.getMethod("isVirtual").invoke(thread)).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}